@@ -0,0 +1,41 @@
+package se.sensera.banking.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import se.sensera.banking.AccountService;
+import se.sensera.banking.exceptions.UseException;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountServiceBenchmark {
+
+    @Benchmark
+    public void findAccountsByUser(BankState bank, Blackhole blackhole) throws UseException {
+        bank.accountService.findAccounts("", bank.userIds[bank.randomIndex()], 0, 10, AccountService.SortOrder.AccountName)
+                .forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void findAccountsByName(BankState bank, Blackhole blackhole) throws UseException {
+        bank.accountService.findAccounts("account " + bank.randomIndex(), null, 0, 10, AccountService.SortOrder.AccountName)
+                .forEach(blackhole::consume);
+    }
+
+    // Removes the user again so the bank keeps its size, two threads hitting the same pair is reported, not failed
+    @Benchmark
+    public void addUserToAccount(BankState bank, Blackhole blackhole) {
+        int account = bank.randomIndex();
+        int user = (account + 1 + bank.randomIndex() % (bank.size - 1)) % bank.size;
+        try {
+            blackhole.consume(bank.accountService.addUserToAccount(bank.userIds[account], bank.accountIds[account], bank.userIds[user]));
+            bank.accountService.removeUserFromAccount(bank.userIds[account], bank.accountIds[account], bank.userIds[user]);
+        } catch (UseException e) {
+            blackhole.consume(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package se.sensera.banking.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import se.sensera.banking.AccountService;
+import se.sensera.banking.TransactionService;
+import se.sensera.banking.UserService;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.impl.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A bank with size users, each owning one account with one deposit, shared by all benchmark threads. It is
+// rebuilt before every iteration so that benchmarks which add users or transactions do not drift away from size.
+// Larger sizes are given on the command line, for example -p size=1000000,10000000
+@State(Scope.Benchmark)
+public class BankState {
+    public static final String CREATED = "2020-01-01 10:00";
+    public static final String LATER = "2020-01-02 10:00";
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    UserService userService;
+    AccountService accountService;
+    TransactionService transactionService;
+    String[] userIds;
+    String[] accountIds;
+    final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setUp() throws UseException {
+        if (size < 2)
+            throw new IllegalArgumentException("size must be at least 2, addUserToAccount needs a second user: " + size);
+        UsersRepositoryImpl usersRepository = new UsersRepositoryImpl();
+        AccountsRepositoryImpl accountsRepository = new AccountsRepositoryImpl();
+        userService = new UserServiceImpl(usersRepository);
+        accountService = new AccountServiceImpl(usersRepository, accountsRepository);
+        transactionService = new TransactionServiceImpl(usersRepository, accountsRepository, new TransactionsRepositoryImpl());
+        userIds = new String[size];
+        accountIds = new String[size];
+        for (int i = 0; i < size; i++) {
+            userIds[i] = userService.createUser("User " + i, "pid-" + i).getId();
+            accountIds[i] = accountService.createAccount(userIds[i], "account " + i).getId();
+            transactionService.createTransaction(CREATED, userIds[i], accountIds[i], 100);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        userIds = null;
+        accountIds = null;
+    }
+
+    int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+
+    String nextPersonalIdentificationNumber() {
+        return "new-" + sequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,43 @@
+package se.sensera.banking.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.exceptions.UseException;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionServiceBenchmark {
+    static final int CONTENDED_THREADS = 8;
+
+    @Benchmark
+    public Transaction createTransaction(BankState bank) throws UseException {
+        int i = bank.randomIndex();
+        return bank.transactionService.createTransaction(BankState.CREATED, bank.userIds[i], bank.accountIds[i], 1);
+    }
+
+    // Every thread posts to its own random account, locks are rarely shared
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public Transaction createTransactionSpread(BankState bank) throws UseException {
+        int i = bank.randomIndex();
+        return bank.transactionService.createTransaction(BankState.CREATED, bank.userIds[i], bank.accountIds[i], 1);
+    }
+
+    // Every thread posts to the first account, all of them queue on the same account lock
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public Transaction createTransactionHotAccount(BankState bank) throws UseException {
+        return bank.transactionService.createTransaction(BankState.CREATED, bank.userIds[0], bank.accountIds[0], 1);
+    }
+
+    @Benchmark
+    public double sum(BankState bank) throws UseException {
+        int i = bank.randomIndex();
+        return bank.transactionService.sum(BankState.LATER, bank.userIds[i], bank.accountIds[i]);
+    }
+}
@@ -0,0 +1,28 @@
+package se.sensera.banking.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import se.sensera.banking.User;
+import se.sensera.banking.UserService;
+import se.sensera.banking.exceptions.UseException;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Benchmark
+    public User createUser(BankState bank) throws UseException {
+        return bank.userService.createUser("New User", bank.nextPersonalIdentificationNumber());
+    }
+
+    @Benchmark
+    public void find(BankState bank, Blackhole blackhole) {
+        bank.userService.find("User " + bank.randomIndex(), 0, 10, UserService.SortOrder.Name)
+                .forEach(blackhole::consume);
+    }
+}
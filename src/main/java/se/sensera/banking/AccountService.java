@@ -17,6 +17,8 @@ public interface AccountService {
 
     Stream<Account> findAccounts(String searchValue, String userId, Integer pageNumber, Integer pageSize, SortOrder sortOrder) throws UseException;
 
+    Stream<Account> findAccountsAfter(String searchValue, String userId, String afterAccountId, Integer pageSize, SortOrder sortOrder) throws UseException;
+
     interface ChangeAccount {
         void setName(String name) throws UseException;
     }
@@ -0,0 +1,23 @@
+package se.sensera.banking;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// UseException is delivered as the exceptional completion of the returned future
+public interface AsyncAccountService {
+
+    CompletableFuture<Account> createAccount(String userId, String accountName);
+
+    CompletableFuture<Account> changeAccount(String userId, String accountId, Consumer<AccountService.ChangeAccount> changeAccountConsumer);
+
+    CompletableFuture<Account> addUserToAccount(String userId, String accountId, String userIdToBeAssigned);
+
+    CompletableFuture<Account> removeUserFromAccount(String userId, String accountId, String userIdToBeAssigned);
+
+    CompletableFuture<Account> inactivateAccount(String userId, String accountId);
+
+    CompletableFuture<List<Account>> findAccounts(String searchValue, String userId, Integer pageNumber, Integer pageSize, AccountService.SortOrder sortOrder);
+
+    CompletableFuture<List<Account>> findAccountsAfter(String searchValue, String userId, String afterAccountId, Integer pageSize, AccountService.SortOrder sortOrder);
+}
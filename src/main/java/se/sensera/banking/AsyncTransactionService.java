@@ -0,0 +1,18 @@
+package se.sensera.banking;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// UseException is delivered as the exceptional completion of the returned future
+public interface AsyncTransactionService {
+
+    CompletableFuture<Transaction> createTransaction(String created, String userId, String accountId, double amount);
+
+    CompletableFuture<Transaction> createTransactionMinorUnits(long createdMillis, String userId, String accountId, long amountMinorUnits);
+
+    CompletableFuture<List<PostingResult>> createTransactions(List<? extends Posting> postings);
+
+    CompletableFuture<Double> sum(String created, String userId, String accountId);
+
+    CompletableFuture<Long> sumMinorUnits(long createdMillis, String userId, String accountId);
+}
@@ -0,0 +1,22 @@
+package se.sensera.banking;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// UseException is delivered as the exceptional completion of the returned future
+public interface AsyncUserService {
+
+    CompletableFuture<User> createUser(String name, String personalIdentificationNumber);
+
+    CompletableFuture<User> changeUser(String userId, Consumer<UserService.ChangeUser> changeUser);
+
+    CompletableFuture<User> inactivateUser(String userId);
+
+    CompletableFuture<Optional<User>> getUser(String userId);
+
+    CompletableFuture<List<User>> find(String searchString, Integer pageNumber, Integer pageSize, UserService.SortOrder sortOrder);
+
+    CompletableFuture<List<User>> findAfter(String searchString, String afterUserId, Integer pageSize, UserService.SortOrder sortOrder);
+}
@@ -0,0 +1,8 @@
+package se.sensera.banking;
+
+public interface Posting {
+    String getCreated();
+    String getUserId();
+    String getAccountId();
+    double getAmount();
+}
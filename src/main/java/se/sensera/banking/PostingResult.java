@@ -0,0 +1,29 @@
+package se.sensera.banking;
+
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseResult;
+
+import java.util.Optional;
+
+public interface PostingResult {
+    Posting getPosting();
+
+    // Failures are shared UseResult instances, reading them allocates nothing
+    UseResult<Transaction> getResult();
+
+    default Optional<Transaction> getTransaction() {
+        return getResult().getValue();
+    }
+
+    // Built on demand
+    default Optional<UseException> getFailure() {
+        UseResult<Transaction> result = getResult();
+        return result.isSuccess()
+                ? Optional.empty()
+                : Optional.of(new UseException(result.getActivity(), result.getFailure()));
+    }
+
+    default boolean isSuccess() {
+        return getResult().isSuccess();
+    }
+}
@@ -1,6 +1,8 @@
 package se.sensera.banking;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public interface Repository<E extends Repository.Entity<I>,I> {
@@ -9,6 +11,11 @@ public interface Repository<E extends Repository.Entity<I>,I> {
     E save(E entity);
     E delete(E entity);
 
+    // Stores that can write several entities in one operation override this
+    default List<E> saveAll(List<E> entities) {
+        return entities.stream().map(this::save).collect(Collectors.toList());
+    }
+
     interface Entity<I> {
         I getId();
     }
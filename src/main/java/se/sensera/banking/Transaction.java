@@ -1,5 +1,7 @@
 package se.sensera.banking;
 
+import se.sensera.banking.utils.Amounts;
+
 import java.util.Date;
 
 public interface Transaction extends Repository.Entity<String> {
@@ -9,4 +11,12 @@ public interface Transaction extends Repository.Entity<String> {
     User getUser();
     Account getAccount();
     double getAmount();
+
+    default long getCreatedMillis() {
+        return getCreated().getTime();
+    }
+
+    default long getAmountMinorUnits() {
+        return Amounts.roundToMinorUnits(getAmount());
+    }
 }
@@ -1,9 +1,13 @@
 package se.sensera.banking;
 
+import se.sensera.banking.exceptions.Activity;
 import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.exceptions.UseResult;
+import se.sensera.banking.utils.Amounts;
 
-import java.text.ParseException;
-import java.util.Date;
+import java.time.Instant;
+import java.util.List;
 import java.util.function.Consumer;
 
 public interface TransactionService {
@@ -11,5 +15,38 @@ public interface TransactionService {
 
     double sum(String created, String userId, String accountId) throws UseException;
 
+    // Same as createTransaction and sum with the amount in minor units, so balances stay exact
+    Transaction createTransactionMinorUnits(String created, String userId, String accountId, long amountMinorUnits) throws UseException;
+
+    long sumMinorUnits(String created, String userId, String accountId) throws UseException;
+
+    // Pre-parsed timestamps skip the text parsing altogether
+    Transaction createTransactionMinorUnits(long createdMillis, String userId, String accountId, long amountMinorUnits) throws UseException;
+
+    long sumMinorUnits(long createdMillis, String userId, String accountId) throws UseException;
+
+    // Non-throwing variants for the hot paths where rejections are common, a failure creates no exception
+    UseResult<Transaction> tryCreateTransaction(String created, String userId, String accountId, double amount);
+
+    UseResult<Transaction> tryCreateTransactionMinorUnits(long createdMillis, String userId, String accountId, long amountMinorUnits);
+
+    UseResult<Long> trySumMinorUnits(String created, String userId, String accountId);
+
+    UseResult<Long> trySumMinorUnits(long createdMillis, String userId, String accountId);
+
+    // Postings are grouped per account and each group is checked and appended holding the account lock once.
+    // A failing posting does not stop the others, the results come back in the order of the postings.
+    List<PostingResult> createTransactions(List<? extends Posting> postings);
+
+    default Transaction createTransaction(Instant created, String userId, String accountId, double amount) throws UseException {
+        if (!Amounts.isWholeMinorUnits(amount))
+            throw new UseException(Activity.CREATE_TRANSACTION, UseExceptionType.INVALID_AMOUNT);
+        return createTransactionMinorUnits(created.toEpochMilli(), userId, accountId, Amounts.toMinorUnits(amount));
+    }
+
+    default double sum(Instant created, String userId, String accountId) throws UseException {
+        return Amounts.toMajorUnits(sumMinorUnits(created.toEpochMilli(), userId, accountId));
+    }
+
     void addMonitor(Consumer<Transaction> monitor);
 }
@@ -18,6 +18,8 @@ public interface UserService {
 
     Stream<User> find(String searchString, Integer pageNumber, Integer pageSize, SortOrder sortOrder);
 
+    Stream<User> findAfter(String searchString, String afterUserId, Integer pageSize, SortOrder sortOrder) throws UseException;
+
     interface ChangeUser {
         void setName(String name);
         void setPersonalIdentificationNumber(String personalIdentificationNumber) throws UseException;
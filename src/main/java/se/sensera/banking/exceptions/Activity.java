@@ -7,7 +7,9 @@ public enum Activity {
     UPDATE_ACCOUNT,
     INACTIVATE_ACCOUNT,
     CREATE_TRANSACTION,
+    CREATE_TRANSACTION_BATCH,
     SUM_TRANSACTION,
     FIND_ACCOUNT,
+    FIND_USER,
     ;
 }
@@ -1,4 +1,10 @@
 package se.sensera.banking.exceptions;
 
 public class CriticalError extends RuntimeException {
+    public CriticalError() {
+    }
+
+    public CriticalError(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -1,17 +1,35 @@
 package se.sensera.banking.exceptions;
 
 public class UseException extends Exception {
+    // Rejections are part of normal traffic, without stack traces creating one is cheap. Set the system property
+    // se.sensera.banking.stacklessUseExceptions=true or call setStackTraces(false) to turn them off.
+    private static volatile boolean stackTraces = !Boolean.getBoolean("se.sensera.banking.stacklessUseExceptions");
+
     Activity activity;
     UseExceptionType useExceptionType;
     Object[] params;
 
     public UseException(Activity activity, UseExceptionType useExceptionType, Object... params) {
-        super(activity+" failed because "+ useExceptionType);
+        super(null, null, true, stackTraces);
         this.activity = activity;
         this.useExceptionType = useExceptionType;
         this.params = params;
     }
 
+    public static void setStackTraces(boolean enabled) {
+        stackTraces = enabled;
+    }
+
+    public static boolean isStackTraces() {
+        return stackTraces;
+    }
+
+    // Built on demand, most rejections are never logged
+    @Override
+    public String getMessage() {
+        return activity + " failed because " + useExceptionType;
+    }
+
     public Activity getActivity() {
         return activity;
     }
@@ -13,6 +13,8 @@ public enum UseExceptionType {
     NOT_FUNDED,
     NOT_FOUND,
     USER_NOT_FOUND,
-    ACCOUNT_NOT_ACTIVE
+    ACCOUNT_NOT_ACTIVE,
+    INVALID_DATE,
+    INVALID_AMOUNT
     ;
 }
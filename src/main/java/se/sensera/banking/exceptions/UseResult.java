@@ -0,0 +1,65 @@
+package se.sensera.banking.exceptions;
+
+import java.util.Optional;
+
+// Outcome of a use case without throwing, a UseException is only created if the caller asks for one.
+// Failures carry no value and are shared per activity and type, so a rejection allocates nothing.
+public final class UseResult<T> {
+    private static final UseResult<?>[][] FAILURES = new UseResult<?>[Activity.values().length][UseExceptionType.values().length];
+
+    static {
+        for (Activity activity : Activity.values())
+            for (UseExceptionType type : UseExceptionType.values())
+                FAILURES[activity.ordinal()][type.ordinal()] = new UseResult<>(null, activity, type);
+    }
+
+    private final T value;
+    private final Activity activity;
+    private final UseExceptionType failure;
+
+    private UseResult(T value, Activity activity, UseExceptionType failure) {
+        this.value = value;
+        this.activity = activity;
+        this.failure = failure;
+    }
+
+    public static <T> UseResult<T> success(T value) {
+        return new UseResult<>(value, null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> UseResult<T> failure(Activity activity, UseExceptionType type) {
+        return (UseResult<T>) FAILURES[activity.ordinal()][type.ordinal()];
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    public Optional<T> getValue() {
+        return Optional.ofNullable(value);
+    }
+
+    public Activity getActivity() {
+        return activity;
+    }
+
+    public UseExceptionType getFailure() {
+        return failure;
+    }
+
+    public T get() throws UseException {
+        if (failure != null)
+            throw new UseException(activity, failure);
+        return value;
+    }
+
+    public T orElse(T other) {
+        return failure == null ? value : other;
+    }
+
+    @Override
+    public String toString() {
+        return failure == null ? "UseResult(" + value + ")" : "UseResult(" + activity + " failed because " + failure + ")";
+    }
+}
@@ -0,0 +1,92 @@
+package se.sensera.banking.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class AccountLedger {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] created = new long[16];
+    private long[] balances = new long[16];
+    private int size;
+
+    public void add(long createdMillis, long amount) {
+        lock.writeLock().lock();
+        try {
+            if (size == created.length) {
+                created = Arrays.copyOf(created, size * 2);
+                balances = Arrays.copyOf(balances, size * 2);
+            }
+            int index = firstIndexAfter(createdMillis);
+            if (index < size) {
+                System.arraycopy(created, index, created, index + 1, size - index);
+                System.arraycopy(balances, index, balances, index + 1, size - index);
+            }
+            created[index] = createdMillis;
+            size++;
+            long balance = index > 0 ? balances[index - 1] : 0;
+            balances[index] = balance + amount;
+            for (int i = index + 1; i < size; i++)
+                balances[i] += amount;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Sum of all amounts created strictly before the given time
+    public long balanceBefore(long createdMillis) {
+        lock.readLock().lock();
+        try {
+            int index = firstIndexAtOrAfter(createdMillis);
+            return index > 0 ? balances[index - 1] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Sum of all amounts created at or before the given time
+    public long balanceAt(long createdMillis) {
+        lock.readLock().lock();
+        try {
+            int index = firstIndexAfter(createdMillis);
+            return index > 0 ? balances[index - 1] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int firstIndexAtOrAfter(long createdMillis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (created[mid] < createdMillis)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private int firstIndexAfter(long createdMillis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (created[mid] <= createdMillis)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+}
@@ -4,34 +4,69 @@ import se.sensera.banking.*;
 import se.sensera.banking.exceptions.Activity;
 import se.sensera.banking.exceptions.UseException;
 import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.utils.IdGenerator;
 import se.sensera.banking.utils.ListUtils;
 
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.UUID;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class AccountServiceImpl implements AccountService {
     private final UsersRepository usersRepository;
     private final AccountsRepository accountsRepository;
+    private final IdGenerator idGenerator;
+    private final UniqueIndex<String, Account, String> accountNames;
+    private final MultiIndex<String, Account, String> accountUsers;
+    private final NGramIndex<Account, String> accountSearch;
+    private final Map<SortOrder, SortedIndex<String, Account, String>> sortedAccounts = new EnumMap<>(SortOrder.class);
 
     public AccountServiceImpl(UsersRepository usersRepository, AccountsRepository accountsRepository) {
+        this(usersRepository, accountsRepository, IdGenerator.defaultGenerator());
+    }
+
+    public AccountServiceImpl(UsersRepository usersRepository, AccountsRepository accountsRepository, IdGenerator idGenerator) {
         this.usersRepository = usersRepository;
         this.accountsRepository = accountsRepository;
+        this.idGenerator = idGenerator;
+        this.accountNames = accountsRepository instanceof IndexedAccountsRepository
+                ? ((IndexedAccountsRepository) accountsRepository).getNameIndex()
+                : null;
+        this.accountUsers = accountsRepository instanceof IndexedAccountsRepository
+                ? ((IndexedAccountsRepository) accountsRepository).getUserIndex()
+                : null;
+        this.accountSearch = accountsRepository instanceof IndexedAccountsRepository
+                ? ((IndexedAccountsRepository) accountsRepository).getSearchIndex()
+                : null;
+        if (accountsRepository instanceof IndexedAccountsRepository)
+            for (SortOrder sortOrder : SortOrder.values())
+                sortedAccounts.put(sortOrder, ((IndexedAccountsRepository) accountsRepository).getSortedIndex(sortOrder));
     }
 
     @Override
     public Account createAccount(String userId, String accountName) throws UseException {
-        accountNameUnique(accountName, Activity.CREATE_ACCOUNT);
-        AccountImpl account = new AccountImpl(UUID.randomUUID().toString(),
-                getUserById(userId, Activity.CREATE_ACCOUNT, UseExceptionType.USER_NOT_FOUND),
+        User owner = getUserById(userId, Activity.CREATE_ACCOUNT, UseExceptionType.USER_NOT_FOUND);
+        String accountId = idGenerator.nextId();
+        if (!claimAccountName(accountName, accountId))
+            throw new UseException(Activity.CREATE_ACCOUNT, UseExceptionType.ACCOUNT_NAME_NOT_UNIQUE);
+        AccountImpl account = new AccountImpl(accountId,
+                owner,
                 accountName,
                 true,
-                new ArrayList<>());
-        return accountsRepository.save(account);
+                new CopyOnWriteArrayList<>());
+        boolean saved = false;
+        try {
+            Account result = accountsRepository.save(account);
+            saved = true;
+            return result;
+        } finally {
+            if (!saved)
+                releaseAccountName(accountId);
+        }
     }
 
     @Override
@@ -40,10 +75,23 @@ public class AccountServiceImpl implements AccountService {
         AtomicBoolean save = new AtomicBoolean(true);
 
         isOwnerOfAccountAndAccountIsActive(userId, account);
-        setAccountName(changeAccountConsumer, account, save);
-        if (!save.get())
-            return account;
-        return accountsRepository.save(account);
+        String previousName = account.getName();
+        boolean saved = false;
+        try {
+            setAccountName(changeAccountConsumer, account, previousName, save);
+            if (!save.get())
+                return account;
+            Account result = accountsRepository.save(account);
+            saved = true;
+            commitAccountName(account.getName(), account.getId());
+            return result;
+        } finally {
+            // The account holds on to the previous name until the save, a reserved name that was never saved is given up
+            if (!saved && !previousName.equals(account.getName())) {
+                abandonAccountName(account.getName(), account.getId());
+                account.setName(previousName);
+            }
+        }
     }
 
     private void isOwnerOfAccountAndAccountIsActive(String userId, Account account) throws UseException {
@@ -53,14 +101,16 @@ public class AccountServiceImpl implements AccountService {
             throw new UseException(Activity.UPDATE_ACCOUNT, UseExceptionType.NOT_ACTIVE);
     }
 
-    private void setAccountName(Consumer<ChangeAccount> changeAccountConsumer, Account account, AtomicBoolean save) {
+    private void setAccountName(Consumer<ChangeAccount> changeAccountConsumer, Account account, String previousName, AtomicBoolean save) {
         changeAccountConsumer.accept(new ChangeAccount() {
             @Override
             public void setName(String name) throws UseException {
-                if (checkIfAccountNameEquals(name)) {
+                if (!reserveAccountName(name, account.getId())) {
                     save.set(false);
                     throw new UseException(Activity.UPDATE_ACCOUNT, UseExceptionType.ACCOUNT_NAME_NOT_UNIQUE);
                 }
+                if (!previousName.equals(account.getName()) && !account.getName().equals(name))
+                    abandonAccountName(account.getName(), account.getId());
                 if (account.getName().equals(name)) {
                     save.set(false);
                 } else {
@@ -132,7 +182,7 @@ public class AccountServiceImpl implements AccountService {
 
         switch (sortOrder) {
             case AccountName -> {
-                return ListUtils.applyPage(accounts.sorted(Comparator.comparing(Account::getName)), pageNumber, pageSize);
+                return ListUtils.applySortedPage(accounts, Comparator.comparing(Account::getName), pageNumber, pageSize);
             }
             case None -> {
                 return ListUtils.applyPage(accounts, pageNumber, pageSize);
@@ -141,16 +191,67 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
-    private void accountNameUnique(String accountName, Activity activity) throws UseException {
-        if (accountsRepository.all()
-                .anyMatch(account -> account.getName().equals(accountName))) {
-            throw new UseException(activity, UseExceptionType.ACCOUNT_NAME_NOT_UNIQUE);
+    @Override
+    public Stream<Account> findAccountsAfter(String searchValue,
+                                             String userId,
+                                             String afterAccountId,
+                                             Integer pageSize,
+                                             SortOrder sortOrder) throws UseException {
+        SortedIndex<String, Account, String> index = sortedAccounts.get(sortOrder);
+        if (index == null || userId != null) {
+            // A user has few accounts, sorting them is cheaper than walking the whole index
+            Comparator<Account> order = accountOrder(sortOrder);
+            Stream<Account> accounts = getAccountStream(searchValue, userId).sorted(order);
+            if (afterAccountId != null) {
+                Account afterAccount = getAccountById(afterAccountId, Activity.FIND_ACCOUNT, UseExceptionType.NOT_FOUND);
+                accounts = accounts.filter(account -> order.compare(account, afterAccount) > 0);
+            }
+            return ListUtils.applyPage(accounts, null, pageSize);
         }
+        Stream<String> accountIds = afterAccountId == null
+                ? index.ascending()
+                : index.after(afterAccountId).orElseThrow(() -> new UseException(Activity.FIND_ACCOUNT, UseExceptionType.NOT_FOUND));
+        String lowerCaseSearchValue = searchValue.toLowerCase();
+        Stream<Account> accounts = accountIds
+                .map(accountsRepository::getEntityById)
+                .flatMap(Optional::stream)
+                .filter(account -> account.getName().toLowerCase().contains(lowerCaseSearchValue));
+        return ListUtils.applyPage(accounts, null, pageSize);
+    }
+
+    private static Comparator<Account> accountOrder(SortOrder sortOrder) {
+        return switch (sortOrder) {
+            case None -> Comparator.comparing(Account::getId);
+            case AccountName -> Comparator.comparing(Account::getName).thenComparing(Account::getId);
+        };
     }
 
-    private boolean checkIfAccountNameEquals(String accountName) {
+    private void releaseAccountName(String accountId) {
+        if (accountNames != null)
+            accountNames.release(accountId);
+    }
+
+    private boolean reserveAccountName(String accountName, String accountId) {
+        if (accountNames != null)
+            return accountNames.reserve(accountName, accountId);
+        return claimAccountName(accountName, accountId);
+    }
+
+    private void commitAccountName(String accountName, String accountId) {
+        if (accountNames != null)
+            accountNames.claim(accountName, accountId);
+    }
+
+    private void abandonAccountName(String accountName, String accountId) {
+        if (accountNames != null)
+            accountNames.abandon(accountName, accountId);
+    }
+
+    private boolean claimAccountName(String accountName, String accountId) {
+        if (accountNames != null)
+            return accountNames.claim(accountName, accountId);
         return accountsRepository.all()
-                .anyMatch(account -> account.getName().equals(accountName));
+                .noneMatch(account -> account.getName().equals(accountName));
     }
 
     private User getUserById(String userId, Activity activity, UseExceptionType useExceptionType) throws UseException {
@@ -170,18 +271,27 @@ public class AccountServiceImpl implements AccountService {
     private Stream<Account> getAccountStream(String searchValue, String userId) {
         Stream<Account> accounts;
         if (userId == null) {
-            accounts = accountsRepository.all()
-                    .filter(account -> account.getName().toLowerCase().contains(searchValue.toLowerCase()))
-                    .collect(Collectors.toList())
-                    .stream();
+            String lowerCaseSearchValue = searchValue.toLowerCase();
+            accounts = searchCandidates(searchValue)
+                    .filter(account -> account.getName().toLowerCase().contains(lowerCaseSearchValue));
+        } else if (accountUsers != null) {
+            accounts = accountUsers.get(userId)
+                    .map(accountsRepository::getEntityById)
+                    .flatMap(Optional::stream);
         } else {
             accounts = accountsRepository.all()
                     .filter(account -> account.getUsers().anyMatch(user -> user.getId().equals(userId))
-                            || isOwnerOfAccount(userId, account))
-                    .collect(Collectors.toList())
-                    .stream();
+                            || isOwnerOfAccount(userId, account));
         }
         return accounts;
     }
 
+    private Stream<Account> searchCandidates(String searchValue) {
+        if (accountSearch != null && accountSearch.canSearch(searchValue))
+            return accountSearch.search(searchValue)
+                    .map(accountsRepository::getEntityById)
+                    .flatMap(Optional::stream);
+        return accountsRepository.all();
+    }
+
 }
@@ -1,34 +1,39 @@
 package se.sensera.banking.impl;
 
 import se.sensera.banking.Account;
-import se.sensera.banking.AccountsRepository;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Optional;
+import se.sensera.banking.AccountService;
+import se.sensera.banking.User;
+
 import java.util.stream.Stream;
 
-public class AccountsRepositoryImpl implements AccountsRepository {
-    List<Account> accounts = new LinkedList<>();
+public class AccountsRepositoryImpl extends ConcurrentMapRepository<Account, String> implements IndexedAccountsRepository {
+    private final UniqueIndex<String, Account, String> names = addIndex(new UniqueIndex<>(Account::getName));
+    private final MultiIndex<String, Account, String> users = addIndex(new MultiIndex<>(account ->
+            Stream.concat(Stream.of(account.getOwner()), account.getUsers()).map(User::getId)));
+    private final NGramIndex<Account, String> search = addIndex(new NGramIndex<>(3, account -> Stream.of(account.getName())));
+    private final SortedIndex<String, Account, String> byId = addIndex(new SortedIndex<>(Account::getId));
+    private final SortedIndex<String, Account, String> byName = addIndex(new SortedIndex<>(Account::getName));
 
     @Override
-    public Optional<Account> getEntityById(String id) {
-        return accounts.stream().filter(account -> account.getId().equals(id)).findAny();
+    public UniqueIndex<String, Account, String> getNameIndex() {
+        return names;
     }
 
     @Override
-    public Stream<Account> all() {
-        return accounts.stream();
+    public MultiIndex<String, Account, String> getUserIndex() {
+        return users;
     }
 
     @Override
-    public Account save(Account entity) {
-        accounts.add(entity);
-        return entity;
+    public NGramIndex<Account, String> getSearchIndex() {
+        return search;
     }
 
     @Override
-    public Account delete(Account entity) {
-        accounts.remove(entity);
-        return entity;
+    public SortedIndex<String, Account, String> getSortedIndex(AccountService.SortOrder sortOrder) {
+        return switch (sortOrder) {
+            case None -> byId;
+            case AccountName -> byName;
+        };
     }
 }
@@ -0,0 +1,59 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Account;
+import se.sensera.banking.AccountService;
+import se.sensera.banking.AsyncAccountService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static se.sensera.banking.utils.FutureUtils.supplyAsync;
+
+public class AsyncAccountServiceImpl implements AsyncAccountService {
+    private final AccountService accountService;
+    private final Executor executor;
+
+    public AsyncAccountServiceImpl(AccountService accountService, Executor executor) {
+        this.accountService = accountService;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Account> createAccount(String userId, String accountName) {
+        return supplyAsync(() -> accountService.createAccount(userId, accountName), executor);
+    }
+
+    @Override
+    public CompletableFuture<Account> changeAccount(String userId, String accountId, Consumer<AccountService.ChangeAccount> changeAccountConsumer) {
+        return supplyAsync(() -> accountService.changeAccount(userId, accountId, changeAccountConsumer), executor);
+    }
+
+    @Override
+    public CompletableFuture<Account> addUserToAccount(String userId, String accountId, String userIdToBeAssigned) {
+        return supplyAsync(() -> accountService.addUserToAccount(userId, accountId, userIdToBeAssigned), executor);
+    }
+
+    @Override
+    public CompletableFuture<Account> removeUserFromAccount(String userId, String accountId, String userIdToBeAssigned) {
+        return supplyAsync(() -> accountService.removeUserFromAccount(userId, accountId, userIdToBeAssigned), executor);
+    }
+
+    @Override
+    public CompletableFuture<Account> inactivateAccount(String userId, String accountId) {
+        return supplyAsync(() -> accountService.inactivateAccount(userId, accountId), executor);
+    }
+
+    // The stream is collected on the executor, a lazy stream would do its work on the caller's thread
+    @Override
+    public CompletableFuture<List<Account>> findAccounts(String searchValue, String userId, Integer pageNumber, Integer pageSize, AccountService.SortOrder sortOrder) {
+        return supplyAsync(() -> accountService.findAccounts(searchValue, userId, pageNumber, pageSize, sortOrder).collect(Collectors.toList()), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Account>> findAccountsAfter(String searchValue, String userId, String afterAccountId, Integer pageSize, AccountService.SortOrder sortOrder) {
+        return supplyAsync(() -> accountService.findAccountsAfter(searchValue, userId, afterAccountId, pageSize, sortOrder).collect(Collectors.toList()), executor);
+    }
+}
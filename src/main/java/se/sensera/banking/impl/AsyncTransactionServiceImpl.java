@@ -0,0 +1,48 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.AsyncTransactionService;
+import se.sensera.banking.Posting;
+import se.sensera.banking.PostingResult;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.TransactionService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static se.sensera.banking.utils.FutureUtils.supplyAsync;
+
+public class AsyncTransactionServiceImpl implements AsyncTransactionService {
+    private final TransactionService transactionService;
+    private final Executor executor;
+
+    public AsyncTransactionServiceImpl(TransactionService transactionService, Executor executor) {
+        this.transactionService = transactionService;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Transaction> createTransaction(String created, String userId, String accountId, double amount) {
+        return supplyAsync(() -> transactionService.createTransaction(created, userId, accountId, amount), executor);
+    }
+
+    @Override
+    public CompletableFuture<Transaction> createTransactionMinorUnits(long createdMillis, String userId, String accountId, long amountMinorUnits) {
+        return supplyAsync(() -> transactionService.createTransactionMinorUnits(createdMillis, userId, accountId, amountMinorUnits), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<PostingResult>> createTransactions(List<? extends Posting> postings) {
+        return supplyAsync(() -> transactionService.createTransactions(postings), executor);
+    }
+
+    @Override
+    public CompletableFuture<Double> sum(String created, String userId, String accountId) {
+        return supplyAsync(() -> transactionService.sum(created, userId, accountId), executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> sumMinorUnits(long createdMillis, String userId, String accountId) {
+        return supplyAsync(() -> transactionService.sumMinorUnits(createdMillis, userId, accountId), executor);
+    }
+}
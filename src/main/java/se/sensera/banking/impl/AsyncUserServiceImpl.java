@@ -0,0 +1,55 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.AsyncUserService;
+import se.sensera.banking.User;
+import se.sensera.banking.UserService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static se.sensera.banking.utils.FutureUtils.supplyAsync;
+
+public class AsyncUserServiceImpl implements AsyncUserService {
+    private final UserService userService;
+    private final Executor executor;
+
+    public AsyncUserServiceImpl(UserService userService, Executor executor) {
+        this.userService = userService;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<User> createUser(String name, String personalIdentificationNumber) {
+        return supplyAsync(() -> userService.createUser(name, personalIdentificationNumber), executor);
+    }
+
+    @Override
+    public CompletableFuture<User> changeUser(String userId, Consumer<UserService.ChangeUser> changeUser) {
+        return supplyAsync(() -> userService.changeUser(userId, changeUser), executor);
+    }
+
+    @Override
+    public CompletableFuture<User> inactivateUser(String userId) {
+        return supplyAsync(() -> userService.inactivateUser(userId), executor);
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> getUser(String userId) {
+        return supplyAsync(() -> userService.getUser(userId), executor);
+    }
+
+    // The stream is collected on the executor, a lazy stream would do its work on the caller's thread
+    @Override
+    public CompletableFuture<List<User>> find(String searchString, Integer pageNumber, Integer pageSize, UserService.SortOrder sortOrder) {
+        return supplyAsync(() -> userService.find(searchString, pageNumber, pageSize, sortOrder).collect(Collectors.toList()), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<User>> findAfter(String searchString, String afterUserId, Integer pageSize, UserService.SortOrder sortOrder) {
+        return supplyAsync(() -> userService.findAfter(searchString, afterUserId, pageSize, sortOrder).collect(Collectors.toList()), executor);
+    }
+}
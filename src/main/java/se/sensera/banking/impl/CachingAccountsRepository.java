@@ -0,0 +1,10 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Account;
+import se.sensera.banking.AccountsRepository;
+
+public class CachingAccountsRepository extends CachingRepository<Account, String> implements AccountsRepository {
+    public CachingAccountsRepository(AccountsRepository repository, int capacity, EvictionPolicy evictionPolicy) {
+        super(repository, capacity, evictionPolicy);
+    }
+}
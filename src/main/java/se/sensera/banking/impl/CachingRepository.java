@@ -0,0 +1,179 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Repository;
+import se.sensera.banking.utils.StripedLocks;
+
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Read-through cache in front of a slower repository, saves and deletes go to the repository first and then to the cache,
+// holding a lock striped by id so that writes of the same id reach the cache in the order they reached the repository.
+// Hits are served from a concurrent map without locking, the eviction order is kept under a lock that a hit only tries
+// to take, so under contention some hits are not counted towards recency or frequency.
+public class CachingRepository<E extends Repository.Entity<I>, I> implements Repository<E, I> {
+    public enum EvictionPolicy {
+        LRU,      // evicts the least recently used entity
+        TINY_LFU  // a new entity only replaces the least recently used one if it has been asked for more often
+    }
+
+    private final Repository<E, I> repository;
+    private final int capacity;
+    private final ConcurrentMap<I, E> entries = new ConcurrentHashMap<>();
+    private final LinkedHashMap<I, Boolean> order = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final Lock lock = new ReentrantLock();
+    private final StripedLocks writeLocks = new StripedLocks(64);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private long writes;
+
+    public CachingRepository(Repository<E, I> repository, int capacity, EvictionPolicy evictionPolicy) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.repository = repository;
+        this.capacity = capacity;
+        this.sketch = evictionPolicy == EvictionPolicy.TINY_LFU ? new FrequencySketch(capacity) : null;
+    }
+
+    @Override
+    public Optional<E> getEntityById(I id) {
+        E entity = entries.get(id);
+        if (entity != null) {
+            hits.increment();
+            if (lock.tryLock()) {
+                try {
+                    order.get(id);
+                    if (sketch != null)
+                        sketch.increment(id);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return Optional.of(entity);
+        }
+        misses.increment();
+        long stamp = writeStamp();
+        Optional<E> loaded = repository.getEntityById(id);
+        lock.lock();
+        try {
+            if (sketch != null)
+                sketch.increment(id);
+            // A write while loading may have made the loaded entity stale, it is simply not cached then
+            if (loaded.isPresent() && writes == stamp && !entries.containsKey(id))
+                admit(id, loaded.get());
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    @Override
+    public Stream<E> all() {
+        return repository.all();
+    }
+
+    @Override
+    public E save(E entity) {
+        Lock writeLock = writeLocks.get(entity.getId());
+        writeLock.lock();
+        try {
+            E saved = repository.save(entity);
+            lock.lock();
+            try {
+                writes++;
+                if (entries.containsKey(saved.getId()))
+                    entries.put(saved.getId(), saved);
+                else
+                    admit(saved.getId(), saved);
+            } finally {
+                lock.unlock();
+            }
+            return saved;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public E delete(E entity) {
+        Lock writeLock = writeLocks.get(entity.getId());
+        writeLock.lock();
+        try {
+            E deleted = repository.delete(entity);
+            invalidate(entity.getId());
+            return deleted;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void invalidate(I id) {
+        lock.lock();
+        try {
+            writes++;
+            order.remove(id);
+            entries.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    // Entities the frequency policy kept out of a full cache
+    public long getRejectedCount() {
+        return rejections.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long requests = hitCount + getMissCount();
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    private long writeStamp() {
+        lock.lock();
+        try {
+            return writes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void admit(I id, E entity) {
+        if (order.size() >= capacity) {
+            I victim = order.keySet().iterator().next();
+            if (sketch != null && sketch.frequency(id) <= sketch.frequency(victim)) {
+                rejections.increment();
+                return;
+            }
+            order.remove(victim);
+            entries.remove(victim);
+            evictions.increment();
+        }
+        order.put(id, Boolean.TRUE);
+        entries.put(id, entity);
+    }
+}
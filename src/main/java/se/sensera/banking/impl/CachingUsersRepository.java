@@ -0,0 +1,10 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.User;
+import se.sensera.banking.UsersRepository;
+
+public class CachingUsersRepository extends CachingRepository<User, String> implements UsersRepository {
+    public CachingUsersRepository(UsersRepository repository, int capacity, EvictionPolicy evictionPolicy) {
+        super(repository, capacity, evictionPolicy);
+    }
+}
@@ -0,0 +1,223 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Account;
+import se.sensera.banking.Repository;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.User;
+import se.sensera.banking.utils.Amounts;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Transactions stored column by column in primitive arrays, users and accounts are kept once per entity and
+// referred to by ordinal. Transaction objects are only created as views over a row when somebody asks for one.
+public class ColumnarTransactionsRepository implements ScannableTransactionsRepository {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ConcurrentMap<String, Integer> rows = new ConcurrentHashMap<>();
+    private final Dictionary<User> users = new Dictionary<>(new User[16]);
+    private final Dictionary<Account> accounts = new Dictionary<>(new Account[16]);
+    // Replaced as a whole when it grows, readers that saw a size always find those rows in the current columns
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+    private volatile int size;
+
+    @Override
+    public Optional<Transaction> getEntityById(String id) {
+        Integer row = rows.get(id);
+        return row == null ? Optional.empty() : Optional.of(new ColumnarTransaction(row));
+    }
+
+    @Override
+    public Stream<Transaction> all() {
+        int count = size;
+        Columns current = columns;
+        return IntStream.range(0, count)
+                .filter(row -> !current.deleted[row])
+                .mapToObj(ColumnarTransaction::new);
+    }
+
+    @Override
+    public Transaction save(Transaction entity) {
+        if (entity instanceof ColumnarTransaction && ((ColumnarTransaction) entity).owner() == this)
+            return entity;
+        appendLock.lock();
+        try {
+            if (rows.containsKey(entity.getId()))
+                throw new IllegalStateException("Transactions can not be changed " + entity.getId());
+            int row = size;
+            Columns current = columns;
+            if (row == current.ids.length)
+                columns = current = current.grow();
+            current.ids[row] = entity.getId();
+            current.created[row] = entity.getCreatedMillis();
+            current.amounts[row] = entity.getAmountMinorUnits();
+            current.users[row] = users.ordinal(entity.getUser());
+            current.accounts[row] = accounts.ordinal(entity.getAccount());
+            rows.put(entity.getId(), row);
+            size = row + 1;
+            return new ColumnarTransaction(row);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public Transaction delete(Transaction entity) {
+        appendLock.lock();
+        try {
+            Integer row = rows.remove(entity.getId());
+            if (row != null) {
+                Columns current = columns;
+                current.deleted[row] = true;
+                // Written back to the volatile field so that readers who pick up the columns also see the flag
+                columns = current;
+            }
+            return entity;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void scan(TransactionVisitor visitor) {
+        int count = size;
+        Columns current = columns;
+        Account[] accountValues = accounts.values;
+        for (int row = 0; row < count; row++)
+            if (!current.deleted[row])
+                visitor.visit(accountValues[current.accounts[row]].getId(), current.created[row], current.amounts[row]);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    private static class Columns {
+        final String[] ids;
+        final long[] created;
+        final long[] amounts;
+        final int[] users;
+        final int[] accounts;
+        final boolean[] deleted;
+
+        Columns(int capacity) {
+            this(new String[capacity], new long[capacity], new long[capacity], new int[capacity], new int[capacity], new boolean[capacity]);
+        }
+
+        private Columns(String[] ids, long[] created, long[] amounts, int[] users, int[] accounts, boolean[] deleted) {
+            this.ids = ids;
+            this.created = created;
+            this.amounts = amounts;
+            this.users = users;
+            this.accounts = accounts;
+            this.deleted = deleted;
+        }
+
+        Columns grow() {
+            int capacity = ids.length * 2;
+            return new Columns(Arrays.copyOf(ids, capacity),
+                    Arrays.copyOf(created, capacity),
+                    Arrays.copyOf(amounts, capacity),
+                    Arrays.copyOf(users, capacity),
+                    Arrays.copyOf(accounts, capacity),
+                    Arrays.copyOf(deleted, capacity));
+        }
+    }
+
+    // Only written holding the append lock
+    private static class Dictionary<T extends Repository.Entity<String>> {
+        final ConcurrentMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+        volatile T[] values;
+        int size;
+
+        Dictionary(T[] values) {
+            this.values = values;
+        }
+
+        int ordinal(T entity) {
+            Integer ordinal = ordinals.get(entity.getId());
+            if (ordinal != null)
+                return ordinal;
+            T[] current = values;
+            if (size == current.length)
+                current = Arrays.copyOf(current, size * 2);
+            current[size] = entity;
+            values = current;
+            ordinals.put(entity.getId(), size);
+            return size++;
+        }
+    }
+
+    private class ColumnarTransaction implements Transaction {
+        private final int row;
+
+        ColumnarTransaction(int row) {
+            this.row = row;
+        }
+
+        ColumnarTransactionsRepository owner() {
+            return ColumnarTransactionsRepository.this;
+        }
+
+        @Override
+        public String getId() {
+            return columns.ids[row];
+        }
+
+        @Override
+        public Date getCreated() {
+            return new Date(getCreatedMillis());
+        }
+
+        @Override
+        public long getCreatedMillis() {
+            return columns.created[row];
+        }
+
+        @Override
+        public User getUser() {
+            return users.values[columns.users[row]];
+        }
+
+        @Override
+        public Account getAccount() {
+            return accounts.values[columns.accounts[row]];
+        }
+
+        @Override
+        public double getAmount() {
+            return Amounts.toMajorUnits(getAmountMinorUnits());
+        }
+
+        @Override
+        public long getAmountMinorUnits() {
+            return columns.amounts[row];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ColumnarTransaction)) return false;
+            ColumnarTransaction that = (ColumnarTransaction) o;
+            return row == that.row && owner() == that.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(row);
+        }
+
+        @Override
+        public String toString() {
+            return "ColumnarTransaction(id=" + getId() + ", created=" + getCreated() + ", amount=" + getAmount() + ")";
+        }
+    }
+}
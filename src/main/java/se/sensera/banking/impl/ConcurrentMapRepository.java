@@ -0,0 +1,100 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+public abstract class ConcurrentMapRepository<E extends Repository.Entity<I>, I> implements Repository<E, I> {
+    final ConcurrentMap<I, E> entities = new ConcurrentHashMap<>();
+    private final List<EntityIndex<E>> indexes = new CopyOnWriteArrayList<>();
+    private volatile Journal<E> journal;
+
+    protected <X extends EntityIndex<E>> X addIndex(X index) {
+        entities.values().forEach(index::update);
+        indexes.add(index);
+        return index;
+    }
+
+    public void setJournal(Journal<E> journal) {
+        this.journal = journal;
+    }
+
+    // Puts a recovered entity back without writing it to the journal again
+    public void restore(E entity) {
+        put(entity);
+    }
+
+    public void restoreDelete(I id) {
+        E entity = entities.remove(id);
+        if (entity != null)
+            indexes.forEach(index -> index.remove(entity));
+    }
+
+    @Override
+    public Optional<E> getEntityById(I id) {
+        return Optional.ofNullable(entities.get(id));
+    }
+
+    @Override
+    public Stream<E> all() {
+        return entities.values().stream();
+    }
+
+    @Override
+    public E save(E entity) {
+        // Indexes change together with the map once the journal has the record, a failed append leaves both untouched
+        Journal<E> current = journal;
+        if (current != null)
+            current.saved(entity, () -> put(entity));
+        else
+            put(entity);
+        return entity;
+    }
+
+    @Override
+    public List<E> saveAll(List<E> batch) {
+        Journal<E> current = journal;
+        if (current != null)
+            current.savedAll(batch, () -> batch.forEach(this::put));
+        else
+            batch.forEach(this::put);
+        return batch;
+    }
+
+    @Override
+    public E delete(E entity) {
+        // Matched by id, the caller may hold a copy, the stored instance is the one the indexes know
+        E stored = entities.get(entity.getId());
+        if (stored == null)
+            return entity;
+        Journal<E> current = journal;
+        if (current != null)
+            current.deleted(stored, () -> remove(stored));
+        else
+            remove(stored);
+        return entity;
+    }
+
+    private void put(E entity) {
+        E previous = entities.get(entity.getId());
+        if (previous == null)
+            indexes.forEach(index -> index.update(entity));
+        else
+            indexes.forEach(index -> index.replace(previous, entity));
+        entities.put(entity.getId(), entity);
+    }
+
+    private void remove(E entity) {
+        if (entities.remove(entity.getId(), entity))
+            indexes.forEach(index -> index.remove(entity));
+    }
+
+    public int size() {
+        return entities.size();
+    }
+}
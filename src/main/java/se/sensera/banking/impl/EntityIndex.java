@@ -0,0 +1,11 @@
+package se.sensera.banking.impl;
+
+public interface EntityIndex<E> {
+    void update(E entity);
+    void remove(E entity);
+
+    // Called instead of update when the id is already stored, indexes keyed on the id alone need not care
+    default void replace(E previous, E entity) {
+        update(entity);
+    }
+}
@@ -0,0 +1,16 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Account;
+import se.sensera.banking.AccountService;
+import se.sensera.banking.AccountsRepository;
+
+public interface IndexedAccountsRepository extends AccountsRepository {
+    UniqueIndex<String, Account, String> getNameIndex();
+
+    // Owner and assigned users id to account ids
+    MultiIndex<String, Account, String> getUserIndex();
+
+    NGramIndex<Account, String> getSearchIndex();
+
+    SortedIndex<String, Account, String> getSortedIndex(AccountService.SortOrder sortOrder);
+}
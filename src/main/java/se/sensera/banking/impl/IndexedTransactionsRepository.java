@@ -0,0 +1,8 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.TransactionsRepository;
+
+public interface IndexedTransactionsRepository extends TransactionsRepository {
+    // Account id to running balance
+    LedgerIndex getLedgerIndex();
+}
@@ -0,0 +1,14 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.User;
+import se.sensera.banking.UserService;
+import se.sensera.banking.UsersRepository;
+
+public interface IndexedUsersRepository extends UsersRepository {
+    UniqueIndex<String, User, String> getPersonalIdentificationNumberIndex();
+
+    // Name and personal identification number
+    NGramIndex<User, String> getSearchIndex();
+
+    SortedIndex<String, User, String> getSortedIndex(UserService.SortOrder sortOrder);
+}
@@ -0,0 +1,19 @@
+package se.sensera.banking.impl;
+
+import java.util.List;
+
+// Records a change and then applies it, which lets the journal keep a checkpoint from seeing one without the other
+public interface Journal<E> {
+    void saved(E entity, Runnable apply);
+    void deleted(E entity, Runnable apply);
+
+    // Journals that can record several saves at once override this, by default they are recorded one by one
+    default void savedAll(List<E> entities, Runnable apply) {
+        for (int i = 0; i < entities.size() - 1; i++)
+            saved(entities.get(i), () -> { });
+        if (entities.isEmpty())
+            apply.run();
+        else
+            saved(entities.get(entities.size() - 1), apply);
+    }
+}
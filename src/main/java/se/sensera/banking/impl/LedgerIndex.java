@@ -0,0 +1,39 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Transaction;
+import se.sensera.banking.utils.StripedLocks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Running balances per account id, as an index of the repository it follows every save whoever makes it
+public class LedgerIndex implements EntityIndex<Transaction> {
+    private final ConcurrentMap<String, AccountLedger> ledgers = new ConcurrentHashMap<>();
+    private final StripedLocks accountLocks = new StripedLocks(256);
+
+    public AccountLedger getLedger(String accountId) {
+        return ledgers.computeIfAbsent(accountId, id -> new AccountLedger());
+    }
+
+    // Held while a balance is checked and the transaction that relies on it is saved
+    public StripedLocks getAccountLocks() {
+        return accountLocks;
+    }
+
+    @Override
+    public void update(Transaction transaction) {
+        getLedger(transaction.getAccount().getId()).add(transaction.getCreatedMillis(), transaction.getAmountMinorUnits());
+    }
+
+    // A transaction saved again replaces its old amount rather than counting twice
+    @Override
+    public void replace(Transaction previous, Transaction transaction) {
+        remove(previous);
+        update(transaction);
+    }
+
+    @Override
+    public void remove(Transaction transaction) {
+        getLedger(transaction.getAccount().getId()).add(transaction.getCreatedMillis(), -transaction.getAmountMinorUnits());
+    }
+}
@@ -0,0 +1,322 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Account;
+import se.sensera.banking.AccountsRepository;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.User;
+import se.sensera.banking.UsersRepository;
+import se.sensera.banking.exceptions.CriticalError;
+import se.sensera.banking.utils.Amounts;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Transactions never change once created, so they are kept as fixed-width records in memory-mapped segment
+// files. Nothing is deserialized on startup and the Transaction objects handed out are views over a record.
+// Records survive a crash of the process as soon as they are written, after a power failure only the records
+// written before the last flush() are guaranteed to be there and complete.
+public class MappedTransactionsRepository implements ScannableTransactionsRepository, AutoCloseable {
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 16;
+    static final int RECORD_SIZE = 144;
+    static final int MAX_ID_LENGTH = 39;
+
+    private static final byte EMPTY = 0;
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;
+    private static final int STATUS = 0;
+    private static final int CREATED = 8;
+    private static final int AMOUNT = 16;
+    private static final int ID = 24;
+    private static final int USER_ID = 64;
+    private static final int ACCOUNT_ID = 104;
+    private static final int ID_SLOT = MAX_ID_LENGTH + 1;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final UsersRepository usersRepository;
+    private final AccountsRepository accountsRepository;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile MappedByteBuffer[] segments;
+    private volatile long size;
+    // Written after every status byte delete changes, readers read it first so that they see those changes
+    private volatile long deletions;
+
+    public MappedTransactionsRepository(Path directory, UsersRepository usersRepository, AccountsRepository accountsRepository) {
+        this(directory, DEFAULT_SEGMENT_RECORDS, usersRepository, accountsRepository);
+    }
+
+    public MappedTransactionsRepository(Path directory, int segmentRecords, UsersRepository usersRepository, AccountsRepository accountsRepository) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.usersRepository = usersRepository;
+        this.accountsRepository = accountsRepository;
+        try {
+            Files.createDirectories(directory);
+            segments = new MappedByteBuffer[0];
+            while (Files.exists(segmentFile(segments.length)))
+                segments = append(segments, map(segments.length));
+            size = segments.length == 0 ? 0 : (long) (segments.length - 1) * segmentRecords + used(segments[segments.length - 1]);
+        } catch (IOException e) {
+            throw new CriticalError("Failed to open transaction store " + directory, e);
+        }
+    }
+
+    @Override
+    public Optional<Transaction> getEntityById(String id) {
+        // Ids are not indexed to keep the heap free of per-transaction state, the services never look them up
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        long count = readableSize();
+        for (long slot = 0; slot < count; slot++)
+            if (status(slot) == LIVE && idEquals(slot, ID, key))
+                return Optional.of(new MappedTransaction(slot));
+        return Optional.empty();
+    }
+
+    @Override
+    public Stream<Transaction> all() {
+        long count = readableSize();
+        return LongStream.range(0, count)
+                .filter(slot -> status(slot) == LIVE)
+                .mapToObj(MappedTransaction::new);
+    }
+
+    @Override
+    public Transaction save(Transaction entity) {
+        if (entity instanceof MappedTransaction && ((MappedTransaction) entity).owner() == this)
+            return entity;
+        byte[] id = encode(entity.getId());
+        byte[] userId = encode(entity.getUser().getId());
+        byte[] accountId = encode(entity.getAccount().getId());
+        appendLock.lock();
+        try {
+            long slot = size;
+            MappedByteBuffer segment = segmentFor(slot);
+            int offset = offset(slot);
+            segment.putLong(offset + CREATED, entity.getCreatedMillis());
+            segment.putLong(offset + AMOUNT, entity.getAmountMinorUnits());
+            putId(segment, offset + ID, id);
+            putId(segment, offset + USER_ID, userId);
+            putId(segment, offset + ACCOUNT_ID, accountId);
+            // The status byte goes last, after a process crash a record is not counted on reopen until it is complete.
+            // A record can span two pages, so after a power failure only flush() gives that guarantee.
+            segment.put(offset + STATUS, LIVE);
+            size = slot + 1;
+            return new MappedTransaction(slot);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public Transaction delete(Transaction entity) {
+        byte[] key = entity.getId().getBytes(StandardCharsets.UTF_8);
+        appendLock.lock();
+        try {
+            long count = size;
+            for (long slot = 0; slot < count; slot++)
+                if (status(slot) == LIVE && idEquals(slot, ID, key)) {
+                    segment(slot).put(offset(slot) + STATUS, DELETED);
+                    deletions++;
+                    return entity;
+                }
+            return entity;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void scan(TransactionVisitor visitor) {
+        long count = readableSize();
+        for (long slot = 0; slot < count; slot++) {
+            MappedByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            if (segment.get(offset + STATUS) == LIVE)
+                visitor.visit(getId(segment, offset + ACCOUNT_ID), segment.getLong(offset + CREATED), segment.getLong(offset + AMOUNT));
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    private long readableSize() {
+        return deletions >= 0 ? size : 0;
+    }
+
+    // Makes every record written so far durable
+    public void flush() {
+        for (MappedByteBuffer segment : segments)
+            segment.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private MappedByteBuffer segmentFor(long slot) {
+        int index = (int) (slot / segmentRecords);
+        if (index == segments.length) {
+            try {
+                segments = append(segments, map(index));
+            } catch (IOException e) {
+                throw new CriticalError("Failed to grow transaction store " + directory, e);
+            }
+        }
+        return segments[index];
+    }
+
+    private MappedByteBuffer map(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(index), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+        }
+    }
+
+    private Path segmentFile(int index) {
+        return directory.resolve(String.format("transactions-%05d.seg", index));
+    }
+
+    // Records are appended in order, so the used part of a segment is found by binary search on the status byte
+    private int used(MappedByteBuffer segment) {
+        int low = 0;
+        int high = segmentRecords;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (segment.get(middle * RECORD_SIZE + STATUS) == EMPTY)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+        return low;
+    }
+
+    private MappedByteBuffer segment(long slot) {
+        return segments[(int) (slot / segmentRecords)];
+    }
+
+    private int offset(long slot) {
+        return (int) (slot % segmentRecords) * RECORD_SIZE;
+    }
+
+    private byte status(long slot) {
+        return segment(slot).get(offset(slot) + STATUS);
+    }
+
+    private boolean idEquals(long slot, int field, byte[] key) {
+        MappedByteBuffer segment = segment(slot);
+        int offset = offset(slot) + field;
+        if (segment.get(offset) != key.length)
+            return false;
+        for (int i = 0; i < key.length; i++)
+            if (segment.get(offset + 1 + i) != key[i])
+                return false;
+        return true;
+    }
+
+    private String getId(MappedByteBuffer segment, int offset) {
+        byte[] bytes = new byte[segment.get(offset)];
+        segment.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putId(MappedByteBuffer segment, int offset, byte[] id) {
+        segment.put(offset, (byte) id.length);
+        segment.put(offset + 1, id);
+    }
+
+    private static byte[] encode(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_ID_LENGTH)
+            throw new IllegalArgumentException("Id longer than " + MAX_ID_LENGTH + " bytes: " + id);
+        return bytes;
+    }
+
+    private static MappedByteBuffer[] append(MappedByteBuffer[] segments, MappedByteBuffer segment) {
+        MappedByteBuffer[] result = Arrays.copyOf(segments, segments.length + 1);
+        result[segments.length] = segment;
+        return result;
+    }
+
+    private class MappedTransaction implements Transaction {
+        private final long slot;
+
+        MappedTransaction(long slot) {
+            this.slot = slot;
+        }
+
+        MappedTransactionsRepository owner() {
+            return MappedTransactionsRepository.this;
+        }
+
+        @Override
+        public String getId() {
+            return MappedTransactionsRepository.this.getId(segment(slot), offset(slot) + ID);
+        }
+
+        @Override
+        public Date getCreated() {
+            return new Date(getCreatedMillis());
+        }
+
+        @Override
+        public long getCreatedMillis() {
+            return segment(slot).getLong(offset(slot) + CREATED);
+        }
+
+        @Override
+        public User getUser() {
+            String userId = MappedTransactionsRepository.this.getId(segment(slot), offset(slot) + USER_ID);
+            return usersRepository.getEntityById(userId)
+                    .orElseThrow(() -> new IllegalStateException("Unknown user " + userId));
+        }
+
+        @Override
+        public Account getAccount() {
+            String accountId = MappedTransactionsRepository.this.getId(segment(slot), offset(slot) + ACCOUNT_ID);
+            return accountsRepository.getEntityById(accountId)
+                    .orElseThrow(() -> new IllegalStateException("Unknown account " + accountId));
+        }
+
+        @Override
+        public double getAmount() {
+            return Amounts.toMajorUnits(getAmountMinorUnits());
+        }
+
+        @Override
+        public long getAmountMinorUnits() {
+            return segment(slot).getLong(offset(slot) + AMOUNT);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MappedTransaction)) return false;
+            MappedTransaction that = (MappedTransaction) o;
+            return slot == that.slot && owner() == that.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(slot);
+        }
+
+        @Override
+        public String toString() {
+            return "MappedTransaction(id=" + getId() + ", created=" + getCreated() + ", amount=" + getAmount() + ")";
+        }
+    }
+}
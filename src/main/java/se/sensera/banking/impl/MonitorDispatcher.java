@@ -0,0 +1,241 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.utils.ExecutionMode;
+import se.sensera.banking.utils.ThreadFactories;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Each lane is a bounded ring buffer drained by one thread and every monitor is bound to one lane,
+// so a monitor always sees events in the order they were published.
+public class MonitorDispatcher<T> implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    public enum BackpressurePolicy {
+        BLOCK,   // publisher waits for room in the lane, except a monitor publishing to its own lane which spills
+        DROP,    // event is discarded for the lanes that are full
+        SPILL    // event is parked in an unbounded overflow queue behind the ring
+    }
+
+    private final List<Lane> lanes;
+    private final BackpressurePolicy backpressurePolicy;
+    private final ThreadFactory threadFactory;
+    private final AtomicInteger nextLane = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong failedHandlers = new AtomicLong();
+    private volatile BiConsumer<? super T, ? super RuntimeException> failureHandler = (event, e) -> { };
+    private volatile boolean running = true;
+
+    public MonitorDispatcher() {
+        this(ExecutionMode.PLATFORM);
+    }
+
+    // Lanes drain on threads of the given mode, a lane still delivers one event at a time to keep the order
+    public MonitorDispatcher(ExecutionMode executionMode) {
+        this(1, DEFAULT_CAPACITY, BackpressurePolicy.BLOCK, ThreadFactories.forMode(executionMode, "monitor-dispatcher-"));
+    }
+
+    public MonitorDispatcher(int lanes, int capacity, BackpressurePolicy backpressurePolicy, ThreadFactory threadFactory) {
+        this.backpressurePolicy = backpressurePolicy;
+        this.threadFactory = threadFactory;
+        this.lanes = IntStream.range(0, lanes)
+                .mapToObj(n -> new Lane(capacity))
+                .collect(Collectors.toList());
+    }
+
+    public void addMonitor(Consumer<T> monitor) {
+        lanes.get(Math.floorMod(nextLane.getAndIncrement(), lanes.size())).addMonitor(monitor);
+    }
+
+    public void publish(T event) {
+        if (!running)
+            throw new IllegalStateException("Dispatcher is closed");
+        for (Lane lane : lanes)
+            if (lane.isActive())
+                lane.publish(event);
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // Monitors that threw, the handler is called on the lane thread with the event and the exception
+    public long getFailed() {
+        return failed.get();
+    }
+
+    // Failure handlers that threw in turn, the exception is swallowed so that the lane keeps delivering
+    public long getFailedHandlers() {
+        return failedHandlers.get();
+    }
+
+    public void setFailureHandler(BiConsumer<? super T, ? super RuntimeException> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    public int getPending() {
+        return lanes.stream().mapToInt(Lane::pending).sum();
+    }
+
+    // Stops taking events and waits for the lanes to deliver what is already queued. If the closing thread is
+    // interrupted the lanes are stopped and the events left behind are counted as dropped.
+    @Override
+    public void close() {
+        running = false;
+        for (Lane lane : lanes) {
+            try {
+                lane.drain();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lanes.forEach(Lane::stop);
+                break;
+            }
+        }
+    }
+
+    private class Lane implements Runnable {
+        private final BlockingQueue<T> ring;
+        private final Queue<T> spill = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger spilled = new AtomicInteger();
+        private final List<Consumer<T>> monitors = new CopyOnWriteArrayList<>();
+        private final Lock startLock = new ReentrantLock();
+        private volatile Thread thread;
+
+        Lane(int capacity) {
+            ring = new ArrayBlockingQueue<>(capacity);
+        }
+
+        boolean isActive() {
+            return !monitors.isEmpty();
+        }
+
+        int pending() {
+            return ring.size() + spilled.get();
+        }
+
+        void addMonitor(Consumer<T> monitor) {
+            monitors.add(monitor);
+            if (thread == null) {
+                startLock.lock();
+                try {
+                    if (thread == null) {
+                        thread = threadFactory.newThread(this);
+                        thread.start();
+                    }
+                } finally {
+                    startLock.unlock();
+                }
+            }
+        }
+
+        void publish(T event) {
+            switch (backpressurePolicy) {
+                case BLOCK -> {
+                    // The lane thread waiting for room in its own ring would never wake up
+                    if (Thread.currentThread() == thread || spilled.get() > 0) {
+                        spilled.incrementAndGet();
+                        spill.add(event);
+                        return;
+                    }
+                    try {
+                        ring.put(event);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped.incrementAndGet();
+                    }
+                }
+                case DROP -> {
+                    if (!ring.offer(event))
+                        dropped.incrementAndGet();
+                }
+                case SPILL -> {
+                    // Once something is spilled everything after it must be spilled too to keep the order
+                    if (spilled.get() > 0 || !ring.offer(event)) {
+                        spilled.incrementAndGet();
+                        spill.add(event);
+                    }
+                }
+            }
+        }
+
+        void drain() throws InterruptedException {
+            Thread current = thread;
+            if (current != null && current != Thread.currentThread())
+                current.join();
+        }
+
+        void stop() {
+            Thread current = thread;
+            if (current != null)
+                current.interrupt();
+        }
+
+        private void discard() {
+            int left = ring.size();
+            ring.clear();
+            while (spill.poll() != null)
+                left++;
+            spilled.set(0);
+            dropped.addAndGet(left);
+        }
+
+        @Override
+        public void run() {
+            while (running || pending() > 0) {
+                try {
+                    // A monitor may swallow the interrupt from stop and keep the flag set
+                    if (Thread.currentThread().isInterrupted())
+                        throw new InterruptedException();
+                    T event = next();
+                    if (event != null)
+                        deliver(event);
+                } catch (InterruptedException e) {
+                    discard();
+                    return;
+                }
+            }
+        }
+
+        private T next() throws InterruptedException {
+            T event = ring.poll();
+            if (event != null)
+                return event;
+            event = spill.poll();
+            if (event != null) {
+                spilled.decrementAndGet();
+                return event;
+            }
+            return ring.poll(100, TimeUnit.MILLISECONDS);
+        }
+
+        private void deliver(T event) {
+            for (Consumer<T> monitor : monitors) {
+                try {
+                    monitor.accept(event);
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    try {
+                        failureHandler.accept(event, e);
+                    } catch (RuntimeException handlerFailure) {
+                        failedHandlers.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+}
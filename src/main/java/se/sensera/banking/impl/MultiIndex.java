@@ -0,0 +1,63 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Repository;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class MultiIndex<K, E extends Repository.Entity<I>, I> implements EntityIndex<E> {
+    private final Function<E, Stream<K>> keysExtractor;
+    private final ConcurrentMap<K, Set<I>> postings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<I, Set<K>> keys = new ConcurrentHashMap<>();
+
+    public MultiIndex(Function<E, Stream<K>> keysExtractor) {
+        this.keysExtractor = keysExtractor;
+    }
+
+    public Stream<I> get(K key) {
+        Set<I> ids = postings.get(key);
+        return ids == null ? Stream.empty() : ids.stream();
+    }
+
+    public int count(K key) {
+        Set<I> ids = postings.get(key);
+        return ids == null ? 0 : ids.size();
+    }
+
+    public boolean contains(K key, I id) {
+        Set<I> ids = postings.get(key);
+        return ids != null && ids.contains(id);
+    }
+
+    @Override
+    public void update(E entity) {
+        Set<K> current = keysExtractor.apply(entity).collect(Collectors.toSet());
+        keys.compute(entity.getId(), (id, previous) -> {
+            if (previous != null)
+                previous.stream()
+                        .filter(key -> !current.contains(key))
+                        .forEach(key -> removePosting(key, id));
+            current.forEach(key -> postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id));
+            return current;
+        });
+    }
+
+    @Override
+    public void remove(E entity) {
+        keys.computeIfPresent(entity.getId(), (id, previous) -> {
+            previous.forEach(key -> removePosting(key, id));
+            return null;
+        });
+    }
+
+    private void removePosting(K key, I id) {
+        postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
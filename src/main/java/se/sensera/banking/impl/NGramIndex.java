@@ -0,0 +1,39 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Repository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Substring search over lower cased text, the result is candidates that the caller must verify
+public class NGramIndex<E extends Repository.Entity<I>, I> extends MultiIndex<String, E, I> {
+    private final int n;
+
+    public NGramIndex(int n, Function<E, Stream<String>> textExtractor) {
+        super(entity -> textExtractor.apply(entity).flatMap(text -> grams(text.toLowerCase(), n)));
+        this.n = n;
+    }
+
+    public boolean canSearch(String searchValue) {
+        return searchValue.length() >= n;
+    }
+
+    public Stream<I> search(String searchValue) {
+        List<String> grams = grams(searchValue.toLowerCase(), n)
+                .distinct()
+                .sorted(Comparator.comparingInt(this::count))
+                .collect(Collectors.toList());
+        List<String> rest = grams.subList(1, grams.size());
+        return get(grams.get(0))
+                .filter(id -> rest.stream().allMatch(gram -> contains(gram, id)));
+    }
+
+    private static Stream<String> grams(String text, int n) {
+        return IntStream.rangeClosed(0, text.length() - n)
+                .mapToObj(i -> text.substring(i, i + n));
+    }
+}
@@ -0,0 +1,464 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Account;
+import se.sensera.banking.Repository;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.User;
+import se.sensera.banking.exceptions.CriticalError;
+import se.sensera.banking.utils.StripedLocks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Keeps the in-memory repositories durable: every save and delete goes to the write-ahead log before it
+// becomes visible, and opening replays the log so the repositories come back as they were.
+// A snapshot starts a new log generation and writes the repositories next to it, after that startup only
+// loads the snapshot and replays the logs from its generation on.
+public class PersistentRepositories implements AutoCloseable {
+    private static final Pattern GENERATION = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|bin)");
+    private static final int SNAPSHOT_MAGIC = 0x534e4150;
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final byte BATCH = 3;
+    private static final byte USER = 1;
+    private static final byte ACCOUNT = 2;
+    private static final byte TRANSACTION = 3;
+
+    private final UsersRepositoryImpl usersRepository;
+    private final AccountsRepositoryImpl accountsRepository;
+    private final TransactionsRepositoryImpl transactionsRepository;
+    private final Path directory;
+    // Changes hold the read lock from journaling until they are applied, a snapshot takes the write lock to cut
+    private final ReadWriteLock checkpoint = new ReentrantReadWriteLock();
+    private final Lock snapshotting = new ReentrantLock();
+    private WriteAheadLog log;
+    private long generation;
+    private ScheduledExecutorService scheduler;
+    private final AtomicLong failedSnapshots = new AtomicLong();
+    private final StripedLocks idLocks = new StripedLocks(1024);
+
+    private PersistentRepositories(Path directory, UsersRepositoryImpl usersRepository, AccountsRepositoryImpl accountsRepository, TransactionsRepositoryImpl transactionsRepository) {
+        this.directory = directory;
+        this.usersRepository = usersRepository;
+        this.accountsRepository = accountsRepository;
+        this.transactionsRepository = transactionsRepository;
+    }
+
+    public static PersistentRepositories open(Path directory) {
+        PersistentRepositories repositories = new PersistentRepositories(directory, new UsersRepositoryImpl(), new AccountsRepositoryImpl(), new TransactionsRepositoryImpl());
+        repositories.recover();
+        repositories.attach();
+        return repositories;
+    }
+
+    public UsersRepositoryImpl getUsersRepository() {
+        return usersRepository;
+    }
+
+    public AccountsRepositoryImpl getAccountsRepository() {
+        return accountsRepository;
+    }
+
+    public TransactionsRepositoryImpl getTransactionsRepository() {
+        return transactionsRepository;
+    }
+
+    public WriteAheadLog getLog() {
+        return log;
+    }
+
+    public void scheduleSnapshots(long period, TimeUnit unit) {
+        scheduleSnapshots(period, unit, e -> { });
+    }
+
+    // A failed snapshot is counted and handed to the handler, the log keeps growing until the next one succeeds
+    public void scheduleSnapshots(long period, TimeUnit unit, Consumer<? super RuntimeException> failureHandler) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                failedSnapshots.incrementAndGet();
+                failureHandler.accept(e);
+            }
+        }, period, period, unit);
+    }
+
+    public long getFailedSnapshots() {
+        return failedSnapshots.get();
+    }
+
+    // Writes the repositories to a snapshot without stopping writers for longer than the log rotation
+    // and copying users and accounts, transactions are the bulk of the data and are written afterwards.
+    public void snapshot() {
+        snapshotting.lock();
+        try {
+            long next;
+            byte[] usersAndAccounts;
+            Set<String> userIds = new HashSet<>();
+            Set<String> accountIds = new HashSet<>();
+            checkpoint.writeLock().lock();
+            try {
+                next = generation + 1;
+                log.rotate(journalFile(next));
+                generation = next;
+                usersAndAccounts = writeUsersAndAccounts(userIds, accountIds);
+            } finally {
+                checkpoint.writeLock().unlock();
+            }
+            writeSnapshot(next, usersAndAccounts, userIds, accountIds);
+            deleteGenerationsBefore(next);
+        } catch (IOException e) {
+            throw new CriticalError("Failed to write snapshot in " + directory, e);
+        } finally {
+            snapshotting.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+        usersRepository.setJournal(null);
+        accountsRepository.setJournal(null);
+        transactionsRepository.setJournal(null);
+        log.close();
+    }
+
+    private void attach() {
+        usersRepository.setJournal(journal(USER, this::writeUser));
+        accountsRepository.setJournal(journal(ACCOUNT, this::writeAccount));
+        transactionsRepository.setJournal(journal(TRANSACTION, this::writeTransaction));
+    }
+
+    private <E extends Repository.Entity<String>> Journal<E> journal(byte type, Writer<E> writer) {
+        return new Journal<>() {
+            @Override
+            public void saved(E entity, Runnable apply) {
+                journal(entity.getId(), () -> record(SAVE, type, out -> writer.write(entity, out)), apply);
+            }
+
+            @Override
+            public void deleted(E entity, Runnable apply) {
+                journal(entity.getId(), () -> record(DELETE, type, out -> out.writeUTF(entity.getId())), apply);
+            }
+
+            // All saves go into one record, so the batch costs a single append and is replayed all or nothing
+            @Override
+            public void savedAll(List<E> entities, Runnable apply) {
+                List<String> ids = entities.stream().map(Repository.Entity::getId).collect(Collectors.toList());
+                journal(idLocks.getAll(ids), () -> record(BATCH, type, out -> {
+                    out.writeInt(entities.size());
+                    for (E entity : entities) {
+                        byte[] save = record(SAVE, type, body -> writer.write(entity, body));
+                        out.writeInt(save.length);
+                        out.write(save);
+                    }
+                }), apply);
+            }
+        };
+    }
+
+    // Entities are mutable, so the state is serialized under the id's lock, that way the log holds the saves
+    // of one id in the order they were applied and replay ends with the latest state
+    private void journal(String id, Supplier<byte[]> record, Runnable apply) {
+        journal(List.of(idLocks.get(id)), record, apply);
+    }
+
+    private void journal(List<Lock> locks, Supplier<byte[]> record, Runnable apply) {
+        locks.forEach(Lock::lock);
+        try {
+            byte[] bytes = record.get();
+            checkpoint.readLock().lock();
+            try {
+                log.append(bytes);
+                apply.run();
+            } finally {
+                checkpoint.readLock().unlock();
+            }
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--)
+                locks.get(i).unlock();
+        }
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            long snapshot;
+            List<Long> journals;
+            try (Stream<Path> files = Files.list(directory)) {
+                List<Path> list = files.collect(Collectors.toList());
+                snapshot = generations(list, "snapshot").stream().mapToLong(Long::longValue).max().orElse(0);
+                journals = generations(list, "journal").stream()
+                        .filter(n -> n >= snapshot)
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            if (snapshot > 0)
+                readSnapshot(snapshotFile(snapshot));
+            generation = journals.isEmpty() ? snapshot : journals.get(journals.size() - 1);
+            journals.stream()
+                    .filter(n -> n < generation)
+                    .forEach(n -> WriteAheadLog.read(journalFile(n), this::replay));
+            log = new WriteAheadLog(journalFile(generation));
+            log.open(this::replay);
+        } catch (IOException e) {
+            throw new CriticalError("Failed to recover repositories from " + directory, e);
+        }
+    }
+
+    private static List<Long> generations(List<Path> files, String kind) {
+        return files.stream()
+                .map(file -> GENERATION.matcher(file.getFileName().toString()))
+                .filter(Matcher::matches)
+                .filter(matcher -> matcher.group(1).equals(kind))
+                .map(matcher -> Long.parseLong(matcher.group(2)))
+                .collect(Collectors.toList());
+    }
+
+    private Path journalFile(long generation) {
+        return directory.resolve(String.format("journal-%06d.log", generation));
+    }
+
+    private Path snapshotFile(long generation) {
+        return directory.resolve(String.format("snapshot-%06d.bin", generation));
+    }
+
+    private byte[] writeUsersAndAccounts(Set<String> userIds, Set<String> accountIds) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        List<User> users = usersRepository.all().collect(Collectors.toList());
+        out.writeInt(users.size());
+        for (User user : users) {
+            writeUser(user, out);
+            userIds.add(user.getId());
+        }
+        List<Account> accounts = accountsRepository.all().collect(Collectors.toList());
+        out.writeInt(accounts.size());
+        for (Account account : accounts) {
+            writeAccount(account, out);
+            accountIds.add(account.getId());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void writeSnapshot(long generation, byte[] usersAndAccounts, Set<String> userIds, Set<String> accountIds) throws IOException {
+        Path temporary = directory.resolve("snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(generation);
+            out.write(usersAndAccounts);
+            // Transactions made after the cut may refer to users or accounts the snapshot lacks, the log has them
+            List<Transaction> transactions = transactionsRepository.all()
+                    .filter(t -> userIds.contains(t.getUser().getId()) && accountIds.contains(t.getAccount().getId()))
+                    .collect(Collectors.toList());
+            out.writeInt(transactions.size());
+            for (Transaction transaction : transactions)
+                writeTransaction(transaction, out);
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, snapshotFile(generation), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void readSnapshot(Path file) throws IOException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(input, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC)
+                throw new IOException("Not a snapshot " + file);
+            in.readLong();
+            int users = in.readInt();
+            for (int i = 0; i < users; i++)
+                usersRepository.restore(readUser(in));
+            int accounts = in.readInt();
+            for (int i = 0; i < accounts; i++)
+                accountsRepository.restore(readAccount(in));
+            int transactions = in.readInt();
+            for (int i = 0; i < transactions; i++)
+                transactionsRepository.restore(readTransaction(in));
+            long checksum = checked.getChecksum().getValue();
+            if (new DataInputStream(input).readLong() != checksum)
+                throw new IOException("Snapshot checksum mismatch " + file);
+        }
+    }
+
+    private void deleteGenerationsBefore(long generation) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Matcher matcher = GENERATION.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(2)) < generation)
+                    Files.delete(file);
+            }
+        }
+    }
+
+    private byte[] record(byte operation, byte type, Body body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(operation);
+            out.writeByte(type);
+            body.write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeUser(User user, DataOutputStream out) throws IOException {
+        out.writeUTF(user.getId());
+        out.writeUTF(user.getName());
+        out.writeUTF(user.getPersonalIdentificationNumber());
+        out.writeBoolean(user.isActive());
+    }
+
+    private void writeAccount(Account account, DataOutputStream out) throws IOException {
+        out.writeUTF(account.getId());
+        out.writeUTF(account.getOwner().getId());
+        out.writeUTF(account.getName());
+        out.writeBoolean(account.isActive());
+        List<User> users = account.getUsers().collect(Collectors.toList());
+        out.writeInt(users.size());
+        for (User user : users)
+            out.writeUTF(user.getId());
+    }
+
+    private void writeTransaction(Transaction transaction, DataOutputStream out) throws IOException {
+        out.writeUTF(transaction.getId());
+        out.writeLong(transaction.getCreatedMillis());
+        out.writeUTF(transaction.getUser().getId());
+        out.writeUTF(transaction.getAccount().getId());
+        out.writeLong(transaction.getAmountMinorUnits());
+    }
+
+    private void replay(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte operation = in.readByte();
+            byte type = in.readByte();
+            if (operation == BATCH) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    byte[] save = new byte[in.readInt()];
+                    in.readFully(save);
+                    replay(save);
+                }
+                return;
+            }
+            if (operation == DELETE) {
+                String id = in.readUTF();
+                switch (type) {
+                    case USER -> usersRepository.restoreDelete(id);
+                    case ACCOUNT -> accountsRepository.restoreDelete(id);
+                    case TRANSACTION -> transactionsRepository.restoreDelete(id);
+                    default -> throw new IOException("Unknown record type " + type);
+                }
+                return;
+            }
+            switch (type) {
+                case USER -> usersRepository.restore(readUser(in));
+                case ACCOUNT -> accountsRepository.restore(readAccount(in));
+                case TRANSACTION -> transactionsRepository.restore(readTransaction(in));
+                default -> throw new IOException("Unknown record type " + type);
+            }
+        } catch (IOException e) {
+            throw new CriticalError("Corrupt write-ahead log record", e);
+        }
+    }
+
+    private User readUser(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        // Services change users in place, so an existing instance is updated to keep accounts pointing at it
+        User user = usersRepository.getEntityById(id)
+                .orElseGet(() -> new UserImpl(id, null, null, false));
+        user.setName(in.readUTF());
+        user.setPersonalIdentificationNumber(in.readUTF());
+        user.setActive(in.readBoolean());
+        return user;
+    }
+
+    private Account readAccount(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        User owner = user(in.readUTF());
+        String name = in.readUTF();
+        boolean active = in.readBoolean();
+        int count = in.readInt();
+        List<User> users = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < count; i++)
+            users.add(user(in.readUTF()));
+        Account account = accountsRepository.getEntityById(id).orElse(null);
+        if (account instanceof AccountImpl) {
+            AccountImpl existing = (AccountImpl) account;
+            existing.setOwner(owner);
+            existing.setName(name);
+            existing.setActive(active);
+            existing.setUsers(users);
+            return existing;
+        }
+        return new AccountImpl(id, owner, name, active, users);
+    }
+
+    private Transaction readTransaction(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        long created = in.readLong();
+        User user = user(in.readUTF());
+        Account account = accountsRepository.getEntityById(in.readUTF())
+                .orElseThrow(() -> new IOException("Transaction " + id + " refers to an unknown account"));
+        return TransactionImpl.ofMinorUnits(id, created, user, account, in.readLong());
+    }
+
+    private User user(String id) throws IOException {
+        return usersRepository.getEntityById(id)
+                .orElseThrow(() -> new IOException("Unknown user " + id));
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Writer<E> {
+        void write(E entity, DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,14 @@
+package se.sensera.banking.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import se.sensera.banking.Posting;
+
+@Data
+@AllArgsConstructor
+public class PostingImpl implements Posting {
+    private final String created;
+    private final String userId;
+    private final String accountId;
+    private final double amount;
+}
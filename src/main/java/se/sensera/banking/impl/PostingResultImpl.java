@@ -0,0 +1,25 @@
+package se.sensera.banking.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import se.sensera.banking.Posting;
+import se.sensera.banking.PostingResult;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.exceptions.Activity;
+import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.exceptions.UseResult;
+
+@Data
+@AllArgsConstructor
+public class PostingResultImpl implements PostingResult {
+    private final Posting posting;
+    private final UseResult<Transaction> result;
+
+    public static PostingResult success(Posting posting, Transaction transaction) {
+        return new PostingResultImpl(posting, UseResult.success(transaction));
+    }
+
+    public static PostingResult failure(Posting posting, UseExceptionType failure) {
+        return new PostingResultImpl(posting, UseResult.failure(Activity.CREATE_TRANSACTION, failure));
+    }
+}
@@ -0,0 +1,12 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.TransactionsRepository;
+
+public interface ScannableTransactionsRepository extends TransactionsRepository {
+    // Visits every stored transaction in insertion order without materializing Transaction objects
+    void scan(TransactionVisitor visitor);
+
+    interface TransactionVisitor {
+        void visit(String accountId, long createdMillis, long amountMinorUnits);
+    }
+}
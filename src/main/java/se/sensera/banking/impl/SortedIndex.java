@@ -0,0 +1,66 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Repository;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Ids ordered by key and then by id, the id of the last seen entity works as a cursor
+public class SortedIndex<K extends Comparable<? super K>, E extends Repository.Entity<I>, I extends Comparable<? super I>> implements EntityIndex<E> {
+    private final Function<E, K> keyExtractor;
+    private final NavigableSet<Map.Entry<K, I>> entries = new ConcurrentSkipListSet<>(
+            Map.Entry.<K, I>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+    private final ConcurrentMap<I, K> keys = new ConcurrentHashMap<>();
+
+    public SortedIndex(Function<E, K> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    public Stream<I> ascending() {
+        return entries.stream().map(Map.Entry::getValue);
+    }
+
+    public boolean contains(I id) {
+        return keys.containsKey(id);
+    }
+
+    // Ids after the given id, empty when the id is not in the index
+    public Optional<Stream<I>> after(I id) {
+        return Optional.ofNullable(keys.get(id))
+                .map(key -> entries.tailSet(entry(key, id), false).stream().map(Map.Entry::getValue));
+    }
+
+    @Override
+    public void update(E entity) {
+        K key = keyExtractor.apply(entity);
+        keys.compute(entity.getId(), (id, previous) -> {
+            if (previous != null && !previous.equals(key))
+                entries.remove(entry(previous, id));
+            entries.add(entry(key, id));
+            return key;
+        });
+    }
+
+    @Override
+    public void remove(E entity) {
+        keys.computeIfPresent(entity.getId(), (id, previous) -> {
+            entries.remove(entry(previous, id));
+            return null;
+        });
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private static <K, I> Map.Entry<K, I> entry(K key, I id) {
+        return new AbstractMap.SimpleImmutableEntry<>(key, id);
+    }
+}
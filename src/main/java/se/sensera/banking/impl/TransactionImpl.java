@@ -1,28 +1,45 @@
 package se.sensera.banking.impl;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import se.sensera.banking.Account;
 import se.sensera.banking.Transaction;
 import se.sensera.banking.User;
+import se.sensera.banking.utils.Amounts;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 @Data
-@AllArgsConstructor
 public class TransactionImpl implements Transaction {
     private final String id;
-    private Date created;
+    private long createdMillis;
     private User user;
     private Account account;
-    private double amount;
+    private long amountMinorUnits;
+
+    public TransactionImpl(String id, Date created, User user, Account account, double amount) {
+        this(id, created.getTime(), user, account, Amounts.roundToMinorUnits(amount));
+    }
+
+    // Private so an int amount never silently means minor units, use ofMinorUnits
+    private TransactionImpl(String id, long createdMillis, User user, Account account, long amountMinorUnits) {
+        this.id = id;
+        this.createdMillis = createdMillis;
+        this.user = user;
+        this.account = account;
+        this.amountMinorUnits = amountMinorUnits;
+    }
+
+    public static TransactionImpl ofMinorUnits(String id, long createdMillis, User user, Account account, long amountMinorUnits) {
+        return new TransactionImpl(id, createdMillis, user, account, amountMinorUnits);
+    }
 
     @Override
     public Date getCreated() {
-        return created;
+        return new Date(createdMillis);
     }
 
-
+    @Override
+    public double getAmount() {
+        return Amounts.toMajorUnits(amountMinorUnits);
+    }
 }
@@ -4,113 +4,314 @@ import se.sensera.banking.*;
 import se.sensera.banking.exceptions.Activity;
 import se.sensera.banking.exceptions.UseException;
 import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.exceptions.UseResult;
+import se.sensera.banking.utils.Amounts;
+import se.sensera.banking.utils.IdGenerator;
+import se.sensera.banking.utils.StripedLocks;
+import se.sensera.banking.utils.TimestampCache;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 
-public class TransactionServiceImpl implements TransactionService {
+// Balances come from the ledger index of an IndexedTransactionsRepository, which sees every save to the repository.
+// Any other repository is read once and from then on this service must be its only writer, transactions saved
+// around it are not counted.
+public class TransactionServiceImpl implements TransactionService, AutoCloseable {
     private final UsersRepository usersRepository;
     private final AccountsRepository accountsRepository;
     private final TransactionsRepository transactionsRepository;
-    List<Consumer<Transaction>> transactionListeners = new LinkedList<>();
+    private final MonitorDispatcher<Transaction> monitorDispatcher;
+    private final IdGenerator idGenerator;
+    private final boolean ownsDispatcher;
+    private final StripedLocks accountLocks;
+    private final Lock ledgersLock = new ReentrantLock();
+    private final boolean repositoryKeepsLedgers;
+    private volatile LedgerIndex ledgers;
 
     public TransactionServiceImpl(UsersRepository usersRepository, AccountsRepository accountsRepository, TransactionsRepository transactionsRepository) {
+        this(usersRepository, accountsRepository, transactionsRepository, new MonitorDispatcher<>(), IdGenerator.defaultGenerator(), true);
+    }
+
+    public TransactionServiceImpl(UsersRepository usersRepository, AccountsRepository accountsRepository, TransactionsRepository transactionsRepository, MonitorDispatcher<Transaction> monitorDispatcher) {
+        this(usersRepository, accountsRepository, transactionsRepository, monitorDispatcher, IdGenerator.defaultGenerator());
+    }
+
+    public TransactionServiceImpl(UsersRepository usersRepository, AccountsRepository accountsRepository, TransactionsRepository transactionsRepository, MonitorDispatcher<Transaction> monitorDispatcher, IdGenerator idGenerator) {
+        this(usersRepository, accountsRepository, transactionsRepository, monitorDispatcher, idGenerator, false);
+    }
+
+    // A dispatcher passed in belongs to the caller and is not closed with the service
+    private TransactionServiceImpl(UsersRepository usersRepository, AccountsRepository accountsRepository, TransactionsRepository transactionsRepository, MonitorDispatcher<Transaction> monitorDispatcher, IdGenerator idGenerator, boolean ownsDispatcher) {
+        this.ownsDispatcher = ownsDispatcher;
         this.usersRepository = usersRepository;
         this.accountsRepository = accountsRepository;
         this.transactionsRepository = transactionsRepository;
+        this.monitorDispatcher = monitorDispatcher;
+        this.idGenerator = idGenerator;
+        this.repositoryKeepsLedgers = transactionsRepository instanceof IndexedTransactionsRepository;
+        // Services sharing a repository also share its account locks, so their funds checks do not overlap
+        if (repositoryKeepsLedgers) {
+            this.ledgers = ((IndexedTransactionsRepository) transactionsRepository).getLedgerIndex();
+            this.accountLocks = ledgers.getAccountLocks();
+        } else {
+            this.accountLocks = new StripedLocks(256);
+        }
     }
 
     static DateTimeFormatter formatter2 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private final TimestampCache timestamps = new TimestampCache(1024, TransactionServiceImpl::stringToEpochMillis);
 
     @Override
     public Transaction createTransaction(String created, String userId, String accountId, double amount) throws UseException {
-        Date date = getDate(created);
-        Account account = getAccountById(accountId, Activity.CREATE_TRANSACTION);
-        isAllowedToCreateTransaction(userId, account);
-        checkIfEnoughFoundsOnAccount(userId, amount, date, account);
-        return createNewTransaction(date, userId, account, amount);
+        return tryCreateTransaction(created, userId, accountId, amount).get();
     }
 
+    @Override
+    public Transaction createTransactionMinorUnits(String created, String userId, String accountId, long amount) throws UseException {
+        return createTransactionMinorUnits(getDate(created), userId, accountId, amount);
+    }
 
-    private Transaction createNewTransaction(Date created, String userId, Account account, double amount) {
-        TransactionImpl transaction = new TransactionImpl(UUID.randomUUID().toString(),
-                created,
-                usersRepository.getEntityById(userId).get(),
-                account,
-                amount);
-        Thread thread = new Thread(() -> addToTransactionListeners(transaction));
-        thread.setDaemon(true);
-        thread.start();
-        return transactionsRepository.save(transaction);
+    @Override
+    public Transaction createTransactionMinorUnits(long createdMillis, String userId, String accountId, long amount) throws UseException {
+        return tryCreateTransactionMinorUnits(createdMillis, userId, accountId, amount).get();
     }
 
-    private void isAllowedToCreateTransaction(String userId, Account account) throws UseException {
+    @Override
+    public UseResult<Transaction> tryCreateTransaction(String created, String userId, String accountId, double amount) {
+        if (!Amounts.isWholeMinorUnits(amount))
+            return UseResult.failure(Activity.CREATE_TRANSACTION, UseExceptionType.INVALID_AMOUNT);
+        return tryCreateTransactionMinorUnits(getDate(created), userId, accountId, Amounts.toMinorUnits(amount));
+    }
+
+    @Override
+    public UseResult<Transaction> tryCreateTransactionMinorUnits(long createdMillis, String userId, String accountId, long amount) {
+        Account account = accountsRepository.getEntityById(accountId).orElse(null);
+        if (account == null)
+            return UseResult.failure(Activity.CREATE_TRANSACTION, UseExceptionType.ACCOUNT_NOT_FOUND);
         if (!isUserOrOwner(userId, account))
-            throw new UseException(Activity.CREATE_TRANSACTION, UseExceptionType.NOT_ALLOWED);
+            return UseResult.failure(Activity.CREATE_TRANSACTION, UseExceptionType.NOT_ALLOWED);
+        Transaction transaction;
+        Lock lock = accountLocks.get(account.getId());
+        lock.lock();
+        try {
+            if (!isEnoughFoundsOnAccount(amount, createdMillis, account))
+                return UseResult.failure(Activity.CREATE_TRANSACTION, UseExceptionType.NOT_FUNDED);
+            transaction = createNewTransaction(createdMillis, userId, account, amount);
+        } finally {
+            lock.unlock();
+        }
+        // Published outside the account lock, a slow monitor must not hold up other transactions on the stripe
+        monitorDispatcher.publish(transaction);
+        return UseResult.success(transaction);
     }
 
-    private void checkIfEnoughFoundsOnAccount(String userId, double amount, Date date, Account account) throws UseException {
-        double sum = sum(date, userId, account);
-        synchronized (this) {
-            if ((sum + amount) < 0)
-                throw new UseException(Activity.CREATE_TRANSACTION, UseExceptionType.NOT_FUNDED);
+
+    @Override
+    public List<PostingResult> createTransactions(List<? extends Posting> postings) {
+        PostingResult[] results = new PostingResult[postings.size()];
+        long[] created = new long[postings.size()];
+        Map<String, List<Integer>> byAccount = new LinkedHashMap<>();
+        for (int i = 0; i < postings.size(); i++) {
+            Posting posting = postings.get(i);
+            // A bad posting is answered on its own and never aborts the rest of the batch
+            if (posting.getAccountId() == null) {
+                results[i] = PostingResultImpl.failure(posting, UseExceptionType.ACCOUNT_NOT_FOUND);
+                continue;
+            }
+            OptionalLong date = parseDate(posting.getCreated());
+            if (date.isEmpty()) {
+                results[i] = PostingResultImpl.failure(posting, UseExceptionType.INVALID_DATE);
+                continue;
+            }
+            created[i] = date.getAsLong();
+            if (!Amounts.isWholeMinorUnits(posting.getAmount())) {
+                results[i] = PostingResultImpl.failure(posting, UseExceptionType.INVALID_AMOUNT);
+                continue;
+            }
+            byAccount.computeIfAbsent(posting.getAccountId(), accountId -> new ArrayList<>()).add(i);
         }
+        byAccount.forEach((accountId, indexes) -> createTransactions(accountId, indexes, postings, created, results));
+        return Arrays.asList(results);
     }
 
-    private void addToTransactionListeners(TransactionImpl transaction) {
-        transactionListeners.forEach(transactionConsumer -> transactionConsumer.accept(transaction));
+    private void createTransactions(String accountId, List<Integer> indexes, List<? extends Posting> postings, long[] createdMillis, PostingResult[] results) {
+        Account account = accountsRepository.getEntityById(accountId).orElse(null);
+        if (account == null) {
+            indexes.forEach(i -> results[i] = PostingResultImpl.failure(postings.get(i), UseExceptionType.ACCOUNT_NOT_FOUND));
+            return;
+        }
+        // Users that are not allowed are remembered as empty, so each user is checked once per batch
+        Map<String, Optional<User>> allowedUsers = new HashMap<>();
+        List<Integer> allowed = new ArrayList<>();
+        for (int i : indexes) {
+            String userId = postings.get(i).getUserId();
+            if (allowedUsers.computeIfAbsent(userId, id -> isUserOrOwner(id, account) ? usersRepository.getEntityById(id) : Optional.empty()).isPresent())
+                allowed.add(i);
+            else
+                results[i] = PostingResultImpl.failure(postings.get(i), UseExceptionType.NOT_ALLOWED);
+        }
+        allowed.sort(Comparator.<Integer>comparingLong(i -> createdMillis[i]).thenComparingInt(i -> i));
+        List<Integer> accepted = new ArrayList<>(allowed.size());
+        List<Transaction> created = new ArrayList<>(allowed.size());
+        Lock lock = accountLocks.get(account.getId());
+        lock.lock();
+        try {
+            AccountLedger ledger = getLedger(account);
+            // Postings are in time order, so every accepted one counts towards the balance of the ones after it
+            long pending = 0;
+            for (int i : allowed) {
+                Posting posting = postings.get(i);
+                long amount = Amounts.toMinorUnits(posting.getAmount());
+                if (ledger.balanceAt(createdMillis[i]) + pending + amount < 0) {
+                    results[i] = PostingResultImpl.failure(posting, UseExceptionType.NOT_FUNDED);
+                } else {
+                    pending += amount;
+                    accepted.add(i);
+                    created.add(TransactionImpl.ofMinorUnits(idGenerator.nextId(), createdMillis[i], allowedUsers.get(posting.getUserId()).get(), account, amount));
+                }
+            }
+            // One write for the whole group, with a write-ahead log that is one append and one sync
+            created = transactionsRepository.saveAll(created);
+            for (int n = 0; n < created.size(); n++) {
+                Transaction transaction = created.get(n);
+                if (!repositoryKeepsLedgers)
+                    ledger.add(transaction.getCreatedMillis(), transaction.getAmountMinorUnits());
+                results[accepted.get(n)] = PostingResultImpl.success(postings.get(accepted.get(n)), transaction);
+            }
+        } finally {
+            lock.unlock();
+        }
+        created.forEach(monitorDispatcher::publish);
+    }
+
+    private Transaction createNewTransaction(long created, String userId, Account account, long amount) {
+        return createNewTransaction(created, usersRepository.getEntityById(userId).get(), account, amount);
+    }
+
+    private Transaction createNewTransaction(long created, User user, Account account, long amount) {
+        TransactionImpl transaction = TransactionImpl.ofMinorUnits(idGenerator.nextId(),
+                created,
+                user,
+                account,
+                amount);
+        Transaction saved = transactionsRepository.save(transaction);
+        if (!repositoryKeepsLedgers)
+            getLedger(account).add(created, amount);
+        return saved;
+    }
+
+    private boolean isEnoughFoundsOnAccount(long amount, long createdMillis, Account account) {
+        // Must be called holding the account lock, transactions at the same time count against the funds
+        long sum = getLedger(account).balanceAt(createdMillis);
+        return (sum + amount) >= 0;
     }
 
     @Override
     public double sum(String created, String userId, String accountId) throws UseException {
-        Date createdDate = getDate(created);
-        Account account = getAccountById(accountId, Activity.SUM_TRANSACTION);
-        return sum(createdDate, userId, account);
+        return Amounts.toMajorUnits(sumMinorUnits(created, userId, accountId));
     }
 
-    private double sum(Date created, String userId, Account account) throws UseException {
-        if (isUserOrOwner(userId, account))
-            return sumOfFoundTransactions(created, account);
-        throw new UseException(Activity.SUM_TRANSACTION, UseExceptionType.NOT_ALLOWED);
+    @Override
+    public long sumMinorUnits(String created, String userId, String accountId) throws UseException {
+        return sumMinorUnits(getDate(created), userId, accountId);
     }
 
-    private Stream<Transaction> getTransactions(Date created, Account account) {
-        return transactionsRepository.all()
-                .filter(t -> t.getAccount().getId().equals(account.getId())
-                        && t.getCreated().before(created));
+    @Override
+    public long sumMinorUnits(long createdMillis, String userId, String accountId) throws UseException {
+        return trySumMinorUnits(createdMillis, userId, accountId).get();
     }
 
-    private double sumOfFoundTransactions(Date created, Account account) {
-        return getTransactions(created, account).mapToDouble(Transaction::getAmount).sum();
+    @Override
+    public UseResult<Long> trySumMinorUnits(String created, String userId, String accountId) {
+        return trySumMinorUnits(getDate(created), userId, accountId);
     }
 
-    private Account getAccountById(String accountId, Activity activity) throws UseException {
-        return accountsRepository.getEntityById(accountId)
-                .orElseThrow(() -> new UseException(activity, UseExceptionType.ACCOUNT_NOT_FOUND));
+    @Override
+    public UseResult<Long> trySumMinorUnits(long createdMillis, String userId, String accountId) {
+        Account account = accountsRepository.getEntityById(accountId).orElse(null);
+        if (account == null)
+            return UseResult.failure(Activity.SUM_TRANSACTION, UseExceptionType.ACCOUNT_NOT_FOUND);
+        if (!isUserOrOwner(userId, account))
+            return UseResult.failure(Activity.SUM_TRANSACTION, UseExceptionType.NOT_ALLOWED);
+        return UseResult.success(sumOfFoundTransactions(createdMillis, account));
     }
 
+    private long sumOfFoundTransactions(long created, Account account) {
+        return getLedger(account).balanceBefore(created);
+    }
+
+    private AccountLedger getLedger(Account account) {
+        return getLedgers().getLedger(account.getId());
+    }
+
+    private LedgerIndex getLedgers() {
+        LedgerIndex result = ledgers;
+        if (result == null) {
+            // A lock rather than synchronized, loading may block and must not pin a virtual thread
+            ledgersLock.lock();
+            try {
+                if (ledgers == null)
+                    ledgers = loadLedgers();
+                result = ledgers;
+            } finally {
+                ledgersLock.unlock();
+            }
+        }
+        return result;
+    }
+
+    // Transactions already in the repository are read once, after that this service keeps the ledgers up to date
+    private LedgerIndex loadLedgers() {
+        LedgerIndex result = new LedgerIndex();
+        if (transactionsRepository instanceof ScannableTransactionsRepository)
+            ((ScannableTransactionsRepository) transactionsRepository)
+                    .scan((accountId, createdMillis, amount) -> result.getLedger(accountId).add(createdMillis, amount));
+        else
+            transactionsRepository.all()
+                    .forEach(t -> result.getLedger(t.getAccount().getId())
+                            .add(t.getCreated().getTime(), Amounts.roundToMinorUnits(t.getAmount())));
+        return result;
+    }
 
     private Boolean isUserOrOwner(String userId, Account account) {
         return account.getOwner().getId().equals(userId)
                 || (account.getUsers().anyMatch(u -> u.getId().equals(userId)));
     }
 
-    private Date getDate(String created) {
-        return stringToDate(created);
+    private long getDate(String created) {
+        return timestamps.toEpochMillis(created);
     }
 
-    private Date stringToDate(String created) {
+    private OptionalLong parseDate(String created) {
+        if (created == null)
+            return OptionalLong.empty();
+        try {
+            return OptionalLong.of(getDate(created));
+        } catch (DateTimeParseException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private static long stringToEpochMillis(String created) {
         LocalDateTime localDateTime = LocalDateTime.parse(created, formatter2);
-        return Date.from(localDateTime.atZone(ZoneId.systemDefault()).toInstant());
+        return localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public void close() {
+        if (ownsDispatcher)
+            monitorDispatcher.close();
     }
 
     @Override
     public void addMonitor(Consumer<Transaction> monitor) {
-        transactionListeners.add(monitor);
+        monitorDispatcher.addMonitor(monitor);
     }
 }
 
@@ -0,0 +1,70 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.Repository;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+public class UniqueIndex<K, E extends Repository.Entity<I>, I> implements EntityIndex<E> {
+    private final Function<E, K> keyExtractor;
+    private final ConcurrentMap<K, I> owners = new ConcurrentHashMap<>();
+    private final ConcurrentMap<I, K> keys = new ConcurrentHashMap<>();
+
+    public UniqueIndex(Function<E, K> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    public boolean contains(K key) {
+        return owners.containsKey(key);
+    }
+
+    public Optional<I> getOwner(K key) {
+        return Optional.ofNullable(owners.get(key));
+    }
+
+    // Atomically moves the id to the key, fails if the key is owned by another id
+    public boolean claim(K key, I id) {
+        I owner = owners.putIfAbsent(key, id);
+        if (owner != null && !owner.equals(id))
+            return false;
+        K previous = keys.put(id, key);
+        if (previous != null && !previous.equals(key))
+            owners.remove(previous, id);
+        return true;
+    }
+
+    // Takes the key for the id while the id keeps the key it already has, claim commits to one of them
+    // and abandon gives a reserved key up again
+    public boolean reserve(K key, I id) {
+        I owner = owners.putIfAbsent(key, id);
+        return owner == null || owner.equals(id);
+    }
+
+    public void abandon(K key, I id) {
+        if (!key.equals(keys.get(id)))
+            owners.remove(key, id);
+    }
+
+    public void release(I id) {
+        K key = keys.remove(id);
+        if (key != null)
+            owners.remove(key, id);
+    }
+
+    @Override
+    public void update(E entity) {
+        if (!claim(keyExtractor.apply(entity), entity.getId()))
+            throw new IllegalStateException("Key '" + keyExtractor.apply(entity) + "' is not unique");
+    }
+
+    @Override
+    public void remove(E entity) {
+        release(entity.getId());
+    }
+
+    public int size() {
+        return owners.size();
+    }
+}
@@ -6,31 +6,57 @@ import se.sensera.banking.UsersRepository;
 import se.sensera.banking.exceptions.Activity;
 import se.sensera.banking.exceptions.UseException;
 import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.utils.IdGenerator;
 import se.sensera.banking.utils.ListUtils;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 public class UserServiceImpl implements UserService {
     private final UsersRepository usersRepository;
+    private final IdGenerator idGenerator;
+    private final UniqueIndex<String, User, String> personalIdentificationNumbers;
+    private final NGramIndex<User, String> userSearch;
+    private final Map<SortOrder, SortedIndex<String, User, String>> sortedUsers = new EnumMap<>(SortOrder.class);
 
 
     public UserServiceImpl(UsersRepository usersRepository) {
+        this(usersRepository, IdGenerator.defaultGenerator());
+    }
+
+    public UserServiceImpl(UsersRepository usersRepository, IdGenerator idGenerator) {
         this.usersRepository = usersRepository;
+        this.idGenerator = idGenerator;
+        this.personalIdentificationNumbers = usersRepository instanceof IndexedUsersRepository
+                ? ((IndexedUsersRepository) usersRepository).getPersonalIdentificationNumberIndex()
+                : null;
+        this.userSearch = usersRepository instanceof IndexedUsersRepository
+                ? ((IndexedUsersRepository) usersRepository).getSearchIndex()
+                : null;
+        if (usersRepository instanceof IndexedUsersRepository)
+            for (SortOrder sortOrder : SortOrder.values())
+                sortedUsers.put(sortOrder, ((IndexedUsersRepository) usersRepository).getSortedIndex(sortOrder));
     }
 
     @Override
     public User createUser(String name, String personalIdentificationNumber) throws UseException {
-        if (usersRepository.all()
-                .anyMatch(user -> user.getPersonalIdentificationNumber()
-                        .equals(personalIdentificationNumber))) {
+        String userId = idGenerator.nextId();
+        if (!claimPersonalIdentificationNumber(personalIdentificationNumber, userId)) {
             throw new UseException(Activity.CREATE_USER, UseExceptionType.USER_PERSONAL_ID_NOT_UNIQUE);
         }
-        UserImpl user = new UserImpl(UUID.randomUUID().toString(), name, personalIdentificationNumber, true);
-        return usersRepository.save(user);
+        UserImpl user = new UserImpl(userId, name, personalIdentificationNumber, true);
+        boolean saved = false;
+        try {
+            User result = usersRepository.save(user);
+            saved = true;
+            return result;
+        } finally {
+            if (!saved)
+                releasePersonalIdentificationNumber(userId);
+        }
     }
 
     @Override
@@ -39,29 +65,42 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new UseException(Activity.UPDATE_USER, UseExceptionType.NOT_FOUND));
 
         AtomicBoolean save = new AtomicBoolean(true);
+        String previousPersonalIdentificationNumber = user.getPersonalIdentificationNumber();
+        boolean saved = false;
+        try {
+            changeUser.accept(new ChangeUser() {
+                @Override
+                public void setName(String name) {
+                    user.setName(name);
+                }
 
-        changeUser.accept(new ChangeUser() {
-            @Override
-            public void setName(String name) {
-                user.setName(name);
-            }
-
-            @Override
-            public void setPersonalIdentificationNumber(String personalIdentificationNumber) throws UseException {
-                if (usersRepository.all()
-                        .anyMatch(user -> user.getPersonalIdentificationNumber()
-                                .equals(personalIdentificationNumber))) {
-                    save.set(false);
-                    throw new UseException(Activity.UPDATE_USER, UseExceptionType.USER_PERSONAL_ID_NOT_UNIQUE);
+                @Override
+                public void setPersonalIdentificationNumber(String personalIdentificationNumber) throws UseException {
+                    if (!reservePersonalIdentificationNumber(personalIdentificationNumber, user.getId())) {
+                        save.set(false);
+                        throw new UseException(Activity.UPDATE_USER, UseExceptionType.USER_PERSONAL_ID_NOT_UNIQUE);
+                    }
+                    if (!previousPersonalIdentificationNumber.equals(user.getPersonalIdentificationNumber())
+                            && !user.getPersonalIdentificationNumber().equals(personalIdentificationNumber))
+                        abandonPersonalIdentificationNumber(user.getPersonalIdentificationNumber(), user.getId());
+                    user.setPersonalIdentificationNumber(personalIdentificationNumber);
                 }
-                user.setPersonalIdentificationNumber(personalIdentificationNumber);
-            }
-        });
+            });
 
-        if (!save.get()) {
-            return user;
+            if (!save.get()) {
+                return user;
+            }
+            User result = usersRepository.save(user);
+            saved = true;
+            commitPersonalIdentificationNumber(user.getPersonalIdentificationNumber(), user.getId());
+            return result;
+        } finally {
+            // The user holds on to the previous number until the save, a reserved number that was never saved is given up
+            if (!saved && !previousPersonalIdentificationNumber.equals(user.getPersonalIdentificationNumber())) {
+                abandonPersonalIdentificationNumber(user.getPersonalIdentificationNumber(), user.getId());
+                user.setPersonalIdentificationNumber(previousPersonalIdentificationNumber);
+            }
         }
-        return usersRepository.save(user);
     }
 
     @Override
@@ -79,19 +118,97 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Stream<User> find(String searchString, Integer pageNumber, Integer pageSize, SortOrder sortOrder) {
-        Stream<User> allFoundUsers = usersRepository.all()
-                .filter(user -> user.getName().toLowerCase().contains(searchString.toLowerCase())
-                        || user.getPersonalIdentificationNumber().contains(searchString))
-                .filter(User::isActive)
-                .collect(Collectors.toList())
-                .stream();
+        Stream<User> allFoundUsers = searchCandidates(searchString)
+                .filter(matches(searchString))
+                .filter(User::isActive);
 
         switch (sortOrder) {
-            case Name -> allFoundUsers = allFoundUsers.sorted(Comparator.comparing(User::getName));
-            case PersonalId -> allFoundUsers = allFoundUsers.sorted(Comparator.comparing(User::getPersonalIdentificationNumber));
+            case Name -> {
+                return ListUtils.applySortedPage(allFoundUsers, Comparator.comparing(User::getName), pageNumber, pageSize);
+            }
+            case PersonalId -> {
+                return ListUtils.applySortedPage(allFoundUsers, Comparator.comparing(User::getPersonalIdentificationNumber), pageNumber, pageSize);
+            }
         }
         return ListUtils.applyPage(allFoundUsers, pageNumber, pageSize);
     }
 
+    @Override
+    public Stream<User> findAfter(String searchString, String afterUserId, Integer pageSize, SortOrder sortOrder) throws UseException {
+        Stream<User> foundUsers = usersAfter(afterUserId, sortOrder)
+                .filter(matches(searchString))
+                .filter(User::isActive);
+        return ListUtils.applyPage(foundUsers, null, pageSize);
+    }
+
+    private Stream<User> usersAfter(String afterUserId, SortOrder sortOrder) throws UseException {
+        SortedIndex<String, User, String> index = sortedUsers.get(sortOrder);
+        if (index != null) {
+            Stream<String> userIds = afterUserId == null
+                    ? index.ascending()
+                    : index.after(afterUserId).orElseThrow(() -> new UseException(Activity.FIND_USER, UseExceptionType.NOT_FOUND));
+            return userIds
+                    .map(usersRepository::getEntityById)
+                    .flatMap(Optional::stream);
+        }
+        Comparator<User> order = userOrder(sortOrder);
+        Stream<User> users = usersRepository.all().sorted(order);
+        if (afterUserId == null)
+            return users;
+        User afterUser = getUser(afterUserId)
+                .orElseThrow(() -> new UseException(Activity.FIND_USER, UseExceptionType.NOT_FOUND));
+        return users.filter(user -> order.compare(user, afterUser) > 0);
+    }
+
+    private static Comparator<User> userOrder(SortOrder sortOrder) {
+        return switch (sortOrder) {
+            case None -> Comparator.comparing(User::getId);
+            case Name -> Comparator.comparing(User::getName).thenComparing(User::getId);
+            case PersonalId -> Comparator.comparing(User::getPersonalIdentificationNumber).thenComparing(User::getId);
+        };
+    }
+
+    private static Predicate<User> matches(String searchString) {
+        String lowerCaseSearchString = searchString.toLowerCase();
+        return user -> user.getName().toLowerCase().contains(lowerCaseSearchString)
+                || user.getPersonalIdentificationNumber().contains(searchString);
+    }
+
+    private Stream<User> searchCandidates(String searchString) {
+        if (userSearch != null && userSearch.canSearch(searchString))
+            return userSearch.search(searchString)
+                    .map(usersRepository::getEntityById)
+                    .flatMap(Optional::stream);
+        return usersRepository.all();
+    }
+
+    private void releasePersonalIdentificationNumber(String userId) {
+        if (personalIdentificationNumbers != null)
+            personalIdentificationNumbers.release(userId);
+    }
+
+    private boolean reservePersonalIdentificationNumber(String personalIdentificationNumber, String userId) {
+        if (personalIdentificationNumbers != null)
+            return personalIdentificationNumbers.reserve(personalIdentificationNumber, userId);
+        return claimPersonalIdentificationNumber(personalIdentificationNumber, userId);
+    }
+
+    private void commitPersonalIdentificationNumber(String personalIdentificationNumber, String userId) {
+        if (personalIdentificationNumbers != null)
+            personalIdentificationNumbers.claim(personalIdentificationNumber, userId);
+    }
+
+    private void abandonPersonalIdentificationNumber(String personalIdentificationNumber, String userId) {
+        if (personalIdentificationNumbers != null)
+            personalIdentificationNumbers.abandon(personalIdentificationNumber, userId);
+    }
+
+    private boolean claimPersonalIdentificationNumber(String personalIdentificationNumber, String userId) {
+        if (personalIdentificationNumbers != null)
+            return personalIdentificationNumbers.claim(personalIdentificationNumber, userId);
+        return usersRepository.all()
+                .noneMatch(user -> user.getPersonalIdentificationNumber().equals(personalIdentificationNumber));
+    }
+
 
 }
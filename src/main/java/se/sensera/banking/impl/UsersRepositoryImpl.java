@@ -1,42 +1,41 @@
 package se.sensera.banking.impl;
 
 import se.sensera.banking.User;
-import se.sensera.banking.UsersRepository;
+import se.sensera.banking.UserService;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Optional;
 import java.util.stream.Stream;
 
-public class UsersRepositoryImpl implements se.sensera.banking.UsersRepository {
-    List<User> users = new LinkedList<>();
+public class UsersRepositoryImpl extends ConcurrentMapRepository<User, String> implements IndexedUsersRepository {
+    private final UniqueIndex<String, User, String> personalIdentificationNumbers = addIndex(new UniqueIndex<>(User::getPersonalIdentificationNumber));
+    private final NGramIndex<User, String> search = addIndex(new NGramIndex<>(3, user ->
+            Stream.of(user.getName(), user.getPersonalIdentificationNumber())));
+    private final SortedIndex<String, User, String> byId = addIndex(new SortedIndex<>(User::getId));
+    private final SortedIndex<String, User, String> byName = addIndex(new SortedIndex<>(User::getName));
+    private final SortedIndex<String, User, String> byPersonalIdentificationNumber = addIndex(new SortedIndex<>(User::getPersonalIdentificationNumber));
 
     @Override
-    public Optional<User> getEntityById(String id) {
-        return users.stream().filter(user -> user.getId().equals(id)).findAny();
+    public UniqueIndex<String, User, String> getPersonalIdentificationNumberIndex() {
+        return personalIdentificationNumbers;
     }
 
     @Override
-    public Stream<User> all() {
-        return users.stream();
+    public NGramIndex<User, String> getSearchIndex() {
+        return search;
     }
 
     @Override
-    public User save(User entity) {
-        users.add(entity);
-        return entity;
-    }
-
-    @Override
-    public User delete(User entity) {
-        users.remove(entity);
-        return entity;
+    public SortedIndex<String, User, String> getSortedIndex(UserService.SortOrder sortOrder) {
+        return switch (sortOrder) {
+            case None -> byId;
+            case Name -> byName;
+            case PersonalId -> byPersonalIdentificationNumber;
+        };
     }
 
     @Override
     public String toString() {
         return "UsersRepositoryImpl{" +
-                "users=" + users +
+                "users=" + entities.values() +
                 '}';
     }
 }
@@ -0,0 +1,228 @@
+package se.sensera.banking.impl;
+
+import se.sensera.banking.exceptions.CriticalError;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Append-only log of length and checksum framed records. Writers park until their record is on disk,
+// while a single flusher thread writes and fsyncs everything that queued up during the previous sync.
+public class WriteAheadLog implements AutoCloseable {
+    private static final int HEADER_SIZE = 8;
+
+    private Path file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appendedCondition = lock.newCondition();
+    private final Condition flushedCondition = lock.newCondition();
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private FileChannel channel;
+    private Thread flusher;
+    private long appended;
+    private long flushed;
+    private long syncs;
+    private IOException failure;
+    private boolean closed;
+
+    public WriteAheadLog(Path file) {
+        this.file = file;
+    }
+
+    // Hands every intact record to the consumer and cuts off a torn tail left by a crash, then opens for appends
+    public void open(Consumer<byte[]> replay) {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long valid = replay(channel, replay);
+            if (valid < channel.size())
+                channel.truncate(valid);
+            channel.position(valid);
+        } catch (IOException e) {
+            throw new CriticalError("Failed to open write-ahead log " + file, e);
+        }
+        flusher = new Thread(this::flushLoop, "write-ahead-log-" + file.getFileName());
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public void append(byte[] record) {
+        lock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("Write-ahead log is closed");
+            // Once a write has failed nothing more is buffered, a record that reached disk later would be
+            // replayed although its caller was told it failed
+            if (failure != null)
+                throw new CriticalError("Failed to write to write-ahead log " + file, failure);
+            writeFrame(record);
+            long sequence = ++appended;
+            appendedCondition.signal();
+            while (flushed < sequence && failure == null)
+                flushedCondition.awaitUninterruptibly();
+            if (failure != null)
+                throw new CriticalError("Failed to write to write-ahead log " + file, failure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Reads a log that is no longer appended to, such as one left behind by an unfinished snapshot
+    public static void read(Path file, Consumer<byte[]> replay) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            replay(channel, replay);
+        } catch (IOException e) {
+            throw new CriticalError("Failed to read write-ahead log " + file, e);
+        }
+    }
+
+    // Waits for everything appended so far to be on disk and continues in a new file
+    public void rotate(Path next) {
+        lock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("Write-ahead log is closed");
+            while (flushed < appended && failure == null)
+                flushedCondition.awaitUninterruptibly();
+            FileChannel previous = channel;
+            channel = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            file = next;
+            previous.close();
+        } catch (IOException e) {
+            throw new CriticalError("Failed to rotate write-ahead log to " + next, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            appendedCondition.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (flusher != null)
+                flusher.join();
+            if (channel != null)
+                channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new CriticalError("Failed to close write-ahead log " + file, e);
+        }
+    }
+
+    private static long replay(FileChannel channel, Consumer<byte[]> replay) throws IOException {
+        long valid = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+        CRC32 crc = new CRC32();
+        while (true) {
+            byte[] record;
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > channel.size() - valid - HEADER_SIZE)
+                    return valid;
+                record = new byte[length];
+                in.readFully(record);
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum)
+                    return valid;
+            } catch (EOFException e) {
+                return valid;
+            }
+            replay.accept(record);
+            valid += HEADER_SIZE + record.length;
+        }
+    }
+
+    private boolean failed() {
+        lock.lock();
+        try {
+            return failure != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeFrame(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        try {
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeInt(record.length);
+            out.writeInt((int) crc.getValue());
+            out.write(record);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            FileChannel target;
+            long sequence;
+            lock.lock();
+            try {
+                while (appended == flushed && !closed)
+                    appendedCondition.awaitUninterruptibly();
+                if (appended == flushed)
+                    return;
+                batch = buffer;
+                buffer = new ByteArrayOutputStream(batch.size());
+                sequence = appended;
+                target = channel;
+            } finally {
+                lock.unlock();
+            }
+            IOException error = null;
+            try {
+                if (failed())
+                    throw new IOException("Discarded after an earlier write failed");
+                ByteBuffer bytes = ByteBuffer.wrap(batch.toByteArray());
+                while (bytes.hasRemaining())
+                    target.write(bytes);
+                target.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            lock.lock();
+            try {
+                if (error != null && failure == null)
+                    failure = error;
+                flushed = sequence;
+                syncs++;
+                flushedCondition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package se.sensera.banking.metrics;
+
+import se.sensera.banking.exceptions.Activity;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.exceptions.UseResult;
+import se.sensera.banking.utils.FutureUtils.UseSupplier;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class ActivityMetrics {
+    private final Map<Activity, ActivityStats> stats = new EnumMap<>(Activity.class);
+
+    public ActivityMetrics() {
+        Arrays.stream(Activity.values()).forEach(activity -> stats.put(activity, new ActivityStats(activity)));
+    }
+
+    public <T> T record(Activity activity, UseSupplier<T> call) throws UseException {
+        ActivityStats activityStats = stats.get(activity);
+        activityStats.started();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            activityStats.succeeded(System.nanoTime() - start);
+            return result;
+        } catch (UseException e) {
+            activityStats.failed(System.nanoTime() - start, e.getUserExceptionType());
+            throw e;
+        } catch (RuntimeException | Error e) {
+            activityStats.errored(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    public <T> T recordUnchecked(Activity activity, Supplier<T> call) {
+        ActivityStats activityStats = stats.get(activity);
+        activityStats.started();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            activityStats.succeeded(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException | Error e) {
+            activityStats.errored(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    public <T> UseResult<T> recordResult(Activity activity, Supplier<UseResult<T>> call) {
+        ActivityStats activityStats = stats.get(activity);
+        activityStats.started();
+        long start = System.nanoTime();
+        try {
+            UseResult<T> result = call.get();
+            if (result.isSuccess())
+                activityStats.succeeded(System.nanoTime() - start);
+            else
+                activityStats.failed(System.nanoTime() - start, result.getFailure());
+            return result;
+        } catch (RuntimeException | Error e) {
+            activityStats.errored(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    // For failures reported without an exception, such as rejected postings in a batch
+    public void recordFailure(Activity activity, UseExceptionType type) {
+        stats.get(activity).failed(type);
+    }
+
+    // Counts an outcome that was not timed on its own, such as a posting in a batch
+    public void recordOutcome(Activity activity, UseResult<?> result) {
+        ActivityStats activityStats = stats.get(activity);
+        if (result.isSuccess())
+            activityStats.succeeded();
+        else
+            activityStats.failed(result.getFailure());
+    }
+
+    public ActivityStats get(Activity activity) {
+        return stats.get(activity);
+    }
+
+    public Collection<ActivityStats> getAll() {
+        return Collections.unmodifiableCollection(stats.values());
+    }
+
+    public void report(MetricsSink sink) {
+        sink.report(this);
+    }
+}
@@ -0,0 +1,90 @@
+package se.sensera.banking.metrics;
+
+import se.sensera.banking.exceptions.Activity;
+import se.sensera.banking.exceptions.UseExceptionType;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ActivityStats {
+    private final Activity activity;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // Filled up front so counting a failure never has to create anything
+    private final Map<UseExceptionType, LongAdder> failures = new EnumMap<>(UseExceptionType.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    ActivityStats(Activity activity) {
+        this.activity = activity;
+        Arrays.stream(UseExceptionType.values()).forEach(type -> failures.put(type, new LongAdder()));
+    }
+
+    public Activity getActivity() {
+        return activity;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    // Unexpected runtime exceptions, as opposed to the use case failures counted per UseExceptionType
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getFailures(UseExceptionType type) {
+        return failures.get(type).sum();
+    }
+
+    public Map<UseExceptionType, Long> getFailures() {
+        Map<UseExceptionType, Long> result = new EnumMap<>(UseExceptionType.class);
+        failures.forEach((type, count) -> {
+            long sum = count.sum();
+            if (sum > 0)
+                result.put(type, sum);
+        });
+        return result;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void succeeded(long nanos) {
+        inFlight.decrementAndGet();
+        latency.record(nanos);
+        successes.increment();
+    }
+
+    void succeeded() {
+        successes.increment();
+    }
+
+    void failed(long nanos, UseExceptionType type) {
+        inFlight.decrementAndGet();
+        latency.record(nanos);
+        failed(type);
+    }
+
+    void failed(UseExceptionType type) {
+        failures.get(type).increment();
+    }
+
+    void errored(long nanos) {
+        inFlight.decrementAndGet();
+        latency.record(nanos);
+        errors.increment();
+    }
+}
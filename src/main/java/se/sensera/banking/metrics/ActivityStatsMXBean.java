@@ -0,0 +1,15 @@
+package se.sensera.banking.metrics;
+
+import java.util.Map;
+
+public interface ActivityStatsMXBean {
+    long getCount();
+    long getSuccesses();
+    long getErrors();
+    int getInFlight();
+    double getMeanMicros();
+    long getP50Micros();
+    long getP99Micros();
+    long getMaxMicros();
+    Map<String, Long> getFailures();
+}
@@ -0,0 +1,97 @@
+package se.sensera.banking.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Registers one MXBean per activity, the beans read the live counters so reporting once is enough
+public class JmxMetricsSink implements MetricsSink {
+    private final MBeanServer server;
+    private final String domain;
+
+    public JmxMetricsSink() {
+        this(ManagementFactory.getPlatformMBeanServer(), "se.sensera.banking");
+    }
+
+    public JmxMetricsSink(MBeanServer server, String domain) {
+        this.server = server;
+        this.domain = domain;
+    }
+
+    @Override
+    public void report(ActivityMetrics metrics) {
+        for (ActivityStats stats : metrics.getAll()) {
+            try {
+                server.registerMBean(new Bean(stats), objectName(stats));
+            } catch (InstanceAlreadyExistsException e) {
+                // Already reported
+            } catch (JMException e) {
+                throw new IllegalStateException("Failed to register metrics for " + stats.getActivity(), e);
+            }
+        }
+    }
+
+    public ObjectName objectName(ActivityStats stats) throws JMException {
+        return new ObjectName(domain + ":type=Activity,name=" + stats.getActivity());
+    }
+
+    private static class Bean implements ActivityStatsMXBean {
+        private final ActivityStats stats;
+
+        Bean(ActivityStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public long getCount() {
+            return stats.getLatency().getCount();
+        }
+
+        @Override
+        public long getSuccesses() {
+            return stats.getSuccesses();
+        }
+
+        @Override
+        public long getErrors() {
+            return stats.getErrors();
+        }
+
+        @Override
+        public int getInFlight() {
+            return stats.getInFlight();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return stats.getLatency().getMean() / 1000;
+        }
+
+        @Override
+        public long getP50Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(stats.getLatency().getValueAtPercentile(50));
+        }
+
+        @Override
+        public long getP99Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(stats.getLatency().getValueAtPercentile(99));
+        }
+
+        @Override
+        public long getMaxMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(stats.getLatency().getMax());
+        }
+
+        @Override
+        public Map<String, Long> getFailures() {
+            Map<String, Long> failures = new TreeMap<>();
+            stats.getFailures().forEach((type, count) -> failures.put(type.name(), count));
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package se.sensera.banking.metrics;
+
+import se.sensera.banking.Posting;
+import se.sensera.banking.PostingResult;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.TransactionService;
+import se.sensera.banking.exceptions.Activity;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseResult;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public class MeteredTransactionService implements TransactionService {
+    private final TransactionService transactionService;
+    private final ActivityMetrics metrics;
+
+    public MeteredTransactionService(TransactionService transactionService, ActivityMetrics metrics) {
+        this.transactionService = transactionService;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Transaction createTransaction(String created, String userId, String accountId, double amount) throws UseException {
+        return metrics.record(Activity.CREATE_TRANSACTION, () -> transactionService.createTransaction(created, userId, accountId, amount));
+    }
+
+    @Override
+    public double sum(String created, String userId, String accountId) throws UseException {
+        return metrics.record(Activity.SUM_TRANSACTION, () -> transactionService.sum(created, userId, accountId));
+    }
+
+    @Override
+    public Transaction createTransactionMinorUnits(String created, String userId, String accountId, long amountMinorUnits) throws UseException {
+        return metrics.record(Activity.CREATE_TRANSACTION, () -> transactionService.createTransactionMinorUnits(created, userId, accountId, amountMinorUnits));
+    }
+
+    @Override
+    public long sumMinorUnits(String created, String userId, String accountId) throws UseException {
+        return metrics.record(Activity.SUM_TRANSACTION, () -> transactionService.sumMinorUnits(created, userId, accountId));
+    }
+
+    @Override
+    public Transaction createTransactionMinorUnits(long createdMillis, String userId, String accountId, long amountMinorUnits) throws UseException {
+        return metrics.record(Activity.CREATE_TRANSACTION, () -> transactionService.createTransactionMinorUnits(createdMillis, userId, accountId, amountMinorUnits));
+    }
+
+    @Override
+    public long sumMinorUnits(long createdMillis, String userId, String accountId) throws UseException {
+        return metrics.record(Activity.SUM_TRANSACTION, () -> transactionService.sumMinorUnits(createdMillis, userId, accountId));
+    }
+
+    @Override
+    public UseResult<Transaction> tryCreateTransaction(String created, String userId, String accountId, double amount) {
+        return metrics.recordResult(Activity.CREATE_TRANSACTION, () -> transactionService.tryCreateTransaction(created, userId, accountId, amount));
+    }
+
+    @Override
+    public UseResult<Transaction> tryCreateTransactionMinorUnits(long createdMillis, String userId, String accountId, long amountMinorUnits) {
+        return metrics.recordResult(Activity.CREATE_TRANSACTION, () -> transactionService.tryCreateTransactionMinorUnits(createdMillis, userId, accountId, amountMinorUnits));
+    }
+
+    @Override
+    public UseResult<Long> trySumMinorUnits(String created, String userId, String accountId) {
+        return metrics.recordResult(Activity.SUM_TRANSACTION, () -> transactionService.trySumMinorUnits(created, userId, accountId));
+    }
+
+    @Override
+    public UseResult<Long> trySumMinorUnits(long createdMillis, String userId, String accountId) {
+        return metrics.recordResult(Activity.SUM_TRANSACTION, () -> transactionService.trySumMinorUnits(createdMillis, userId, accountId));
+    }
+
+    // The batch is timed under its own activity, each posting is counted under CREATE_TRANSACTION without a latency
+    @Override
+    public List<PostingResult> createTransactions(List<? extends Posting> postings) {
+        List<PostingResult> results = metrics.recordUnchecked(Activity.CREATE_TRANSACTION_BATCH, () -> transactionService.createTransactions(postings));
+        results.forEach(result -> metrics.recordOutcome(Activity.CREATE_TRANSACTION, result.getResult()));
+        return results;
+    }
+
+    @Override
+    public void addMonitor(Consumer<Transaction> monitor) {
+        transactionService.addMonitor(monitor);
+    }
+}
@@ -0,0 +1,51 @@
+package se.sensera.banking.metrics;
+
+import se.sensera.banking.User;
+import se.sensera.banking.UserService;
+import se.sensera.banking.exceptions.Activity;
+import se.sensera.banking.exceptions.UseException;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Find results are lazy streams, their latency covers building the stream and not consuming it
+public class MeteredUserService implements UserService {
+    private final UserService userService;
+    private final ActivityMetrics metrics;
+
+    public MeteredUserService(UserService userService, ActivityMetrics metrics) {
+        this.userService = userService;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public User createUser(String name, String personalIdentificationNumber) throws UseException {
+        return metrics.record(Activity.CREATE_USER, () -> userService.createUser(name, personalIdentificationNumber));
+    }
+
+    @Override
+    public User changeUser(String userId, Consumer<ChangeUser> changeUser) throws UseException {
+        return metrics.record(Activity.UPDATE_USER, () -> userService.changeUser(userId, changeUser));
+    }
+
+    @Override
+    public User inactivateUser(String userId) throws UseException {
+        return metrics.record(Activity.UPDATE_USER, () -> userService.inactivateUser(userId));
+    }
+
+    @Override
+    public Optional<User> getUser(String userId) {
+        return metrics.recordUnchecked(Activity.FIND_USER, () -> userService.getUser(userId));
+    }
+
+    @Override
+    public Stream<User> find(String searchString, Integer pageNumber, Integer pageSize, SortOrder sortOrder) {
+        return metrics.recordUnchecked(Activity.FIND_USER, () -> userService.find(searchString, pageNumber, pageSize, sortOrder));
+    }
+
+    @Override
+    public Stream<User> findAfter(String searchString, String afterUserId, Integer pageSize, SortOrder sortOrder) throws UseException {
+        return metrics.record(Activity.FIND_USER, () -> userService.findAfter(searchString, afterUserId, pageSize, sortOrder));
+    }
+}
@@ -0,0 +1,5 @@
+package se.sensera.banking.metrics;
+
+public interface MetricsSink {
+    void report(ActivityMetrics metrics);
+}
@@ -0,0 +1,45 @@
+package se.sensera.banking.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// One line per activity that has seen any calls, latencies in microseconds
+public class TextMetricsSink implements MetricsSink {
+    private final PrintStream out;
+
+    public TextMetricsSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void report(ActivityMetrics metrics) {
+        out.print(format(metrics));
+        out.flush();
+    }
+
+    public static String format(ActivityMetrics metrics) {
+        StringBuilder text = new StringBuilder();
+        for (ActivityStats stats : metrics.getAll()) {
+            LatencyHistogram latency = stats.getLatency();
+            if (latency.getCount() == 0 && stats.getInFlight() == 0)
+                continue;
+            text.append(String.format("%-20s count=%d ok=%d errors=%d inFlight=%d mean=%.1f p50=%d p99=%d p999=%d max=%d failures=%s%n",
+                    stats.getActivity(),
+                    latency.getCount(),
+                    stats.getSuccesses(),
+                    stats.getErrors(),
+                    stats.getInFlight(),
+                    latency.getMean() / 1000,
+                    micros(latency.getValueAtPercentile(50)),
+                    micros(latency.getValueAtPercentile(99)),
+                    micros(latency.getValueAtPercentile(99.9)),
+                    micros(latency.getMax()),
+                    stats.getFailures()));
+        }
+        return text.toString();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,39 @@
+package se.sensera.banking.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Amounts inside the transaction engine are whole minor units (cents), doubles only exist at the API edge
+public interface Amounts {
+    long MINOR_UNITS = 100;
+
+    // A fraction of a minor unit is rejected rather than rounded away, money is never created or lost silently
+    static long toMinorUnits(double amount) {
+        long minorUnits = Math.round(amount * MINOR_UNITS);
+        if (!isWholeMinorUnits(amount, minorUnits))
+            throw new IllegalArgumentException("Amount is not a whole number of minor units: " + amount);
+        return minorUnits;
+    }
+
+    // For amounts that are already stored, a fraction of a minor unit is rounded half to even as it was written
+    static long roundToMinorUnits(double amount) {
+        return BigDecimal.valueOf(amount)
+                .movePointRight(2)
+                .setScale(0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+
+    static boolean isWholeMinorUnits(double amount) {
+        return isWholeMinorUnits(amount, Math.round(amount * MINOR_UNITS));
+    }
+
+    static double toMajorUnits(long minorUnits) {
+        return (double) minorUnits / MINOR_UNITS;
+    }
+
+    // Scaling an amount written with two decimals is off by a few ulps at most, a sub-cent amount is off by far more
+    private static boolean isWholeMinorUnits(double amount, long minorUnits) {
+        double scaled = amount * MINOR_UNITS;
+        return Double.isFinite(scaled) && Math.abs(scaled - minorUnits) <= 4 * Math.ulp(scaled);
+    }
+}
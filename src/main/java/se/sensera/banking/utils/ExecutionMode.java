@@ -0,0 +1,6 @@
+package se.sensera.banking.utils;
+
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL
+}
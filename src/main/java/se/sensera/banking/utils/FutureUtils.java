@@ -0,0 +1,30 @@
+package se.sensera.banking.utils;
+
+import se.sensera.banking.exceptions.UseException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public interface FutureUtils {
+
+    // Unlike supplyAsync a UseException completes the future as it is, not wrapped in a CompletionException
+    static <T> CompletableFuture<T> supplyAsync(UseSupplier<T> supplier, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(supplier.get());
+                } catch (UseException | RuntimeException | Error e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    interface UseSupplier<T> {
+        T get() throws UseException;
+    }
+}
@@ -0,0 +1,9 @@
+package se.sensera.banking.utils;
+
+public interface IdGenerator {
+    String nextId();
+
+    static IdGenerator defaultGenerator() {
+        return TimeOrderedIdGenerator.DEFAULT;
+    }
+}
@@ -1,36 +1,58 @@
 package se.sensera.banking.utils;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.stream.Stream;
 
 public interface ListUtils {
 
+    // pageNumber without pageSize skips pageNumber elements, a page never holds more than pageSize elements
     static <E> Stream<E> applyPage(Stream<E> stream, Integer pageNumber, Integer pageSize) {
+        if (pageNumber != null && pageNumber < 0 || pageSize != null && pageSize < 0)
+            return Stream.empty();
         if (pageNumber != null) {
-            List<E> intermediateList = stream.collect(Collectors.toList());
             if (pageSize == null)
-                try {
-                    return intermediateList
-                            .subList(pageNumber, intermediateList.size())
-                            .stream();
-                } catch (Exception e) {
-                    return Stream.empty();
-                }
-            else
-                try {
-                    int fromIndex = pageNumber * pageSize;
-                    int toIndex = pageNumber > 0 ? pageNumber * (pageSize + 1) : pageSize;
-                    if (toIndex > intermediateList.size())
-                        toIndex = intermediateList.size();
-                    return intermediateList
-                            .subList(fromIndex, toIndex)
-                            .stream();
-                } catch (Exception e) {
-                    return Stream.empty();
-                }
+                return stream.skip(pageNumber);
+            return stream.skip((long) pageNumber * pageSize).limit(pageSize);
         } else if (pageSize != null)
             return stream.limit(pageSize);
         return stream;
     }
+
+    // Same result as applyPage(stream.sorted(comparator), ...) but only keeps the elements up to the end of the page
+    static <E> Stream<E> applySortedPage(Stream<E> stream, Comparator<? super E> comparator, Integer pageNumber, Integer pageSize) {
+        if (pageSize == null)
+            return applyPage(stream.sorted(comparator), pageNumber, null);
+        if (pageNumber != null && pageNumber < 0 || pageSize < 0)
+            return Stream.empty();
+        long pageStart = pageNumber == null ? 0 : (long) pageNumber * pageSize;
+        long pageEnd = pageStart + pageSize;
+        if (pageSize == 0 || pageEnd > Integer.MAX_VALUE)
+            return applyPage(stream.sorted(comparator), pageNumber, pageSize);
+        return topK(stream, comparator, (int) pageEnd).stream().skip(pageStart);
+    }
+
+    private static <E> List<E> topK(Stream<E> stream, Comparator<? super E> comparator, int k) {
+        // Encounter order breaks ties so the result is as stable as Stream.sorted
+        Comparator<Map.Entry<E, Long>> ranked = Comparator.<Map.Entry<E, Long>, E>comparing(Map.Entry::getKey, comparator)
+                .thenComparing(Map.Entry::getValue);
+        PriorityQueue<Map.Entry<E, Long>> heap = new PriorityQueue<>(Math.min(k, 1024), ranked.reversed());
+        long[] order = new long[1];
+        stream.forEachOrdered(element -> {
+            Map.Entry<E, Long> candidate = new AbstractMap.SimpleImmutableEntry<>(element, order[0]++);
+            if (heap.size() < k)
+                heap.add(candidate);
+            else if (ranked.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        });
+        List<E> result = new ArrayList<>(heap.size());
+        heap.stream().sorted(ranked).forEachOrdered(entry -> result.add(entry.getKey()));
+        return result;
+    }
 }
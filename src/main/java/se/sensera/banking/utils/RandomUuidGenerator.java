@@ -0,0 +1,11 @@
+package se.sensera.banking.utils;
+
+import java.util.UUID;
+
+// The ids used before TimeOrderedIdGenerator, random and unordered
+public class RandomUuidGenerator implements IdGenerator {
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
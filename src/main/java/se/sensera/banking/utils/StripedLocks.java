@@ -0,0 +1,39 @@
+package se.sensera.banking.utils;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class StripedLocks {
+    private final Lock[] stripes;
+    private final int mask;
+
+    public StripedLocks(int minimumStripes) {
+        int size = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+        stripes = new Lock[size];
+        for (int i = 0; i < size; i++)
+            stripes[i] = new ReentrantLock();
+        mask = size - 1;
+    }
+
+    public Lock get(Object key) {
+        return stripes[index(key)];
+    }
+
+    // The distinct locks of the keys in stripe order, taking them in that order can not deadlock
+    public List<Lock> getAll(Iterable<?> keys) {
+        TreeMap<Integer, Lock> locks = new TreeMap<>();
+        keys.forEach(key -> locks.put(index(key), stripes[index(key)]));
+        return List.copyOf(locks.values());
+    }
+
+    private int index(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
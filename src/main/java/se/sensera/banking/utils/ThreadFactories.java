@@ -0,0 +1,54 @@
+package se.sensera.banking.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The build targets Java 14, virtual threads are looked up reflectively and only exist on a JDK that has them
+public interface ThreadFactories {
+
+    static ThreadFactory forMode(ExecutionMode mode, String prefix) {
+        return switch (mode) {
+            case PLATFORM -> platformDaemon(prefix);
+            case VIRTUAL -> virtual(prefix);
+        };
+    }
+
+    static ThreadFactory platformDaemon(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    static boolean virtualThreadsAvailable() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static ThreadFactory virtual(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            Method factory = builderType.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads are not available in Java " + Runtime.version().feature(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread factory", e);
+        }
+    }
+
+    // One new thread per task, meant for virtual threads where a pool only gets in the way
+    static Executor perTask(ThreadFactory threadFactory) {
+        return task -> threadFactory.newThread(task).start();
+    }
+}
@@ -0,0 +1,89 @@
+package se.sensera.banking.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// 64-bit ids of 42 bits milliseconds since 2020, 10 bits node and 12 bits sequence. Every id is larger than the
+// one before it, when a millisecond runs out of sequence numbers the next one is borrowed. The string form is 13
+// characters of Crockford base32 that sort the same way as the numbers.
+public class TimeOrderedIdGenerator implements IdGenerator {
+    static final TimeOrderedIdGenerator DEFAULT = new TimeOrderedIdGenerator(Integer.getInteger("se.sensera.banking.nodeId", 0));
+
+    public static final long EPOCH_MILLIS = 1577836800000L;
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LENGTH = 13;
+
+    private final long node;
+    private final LongSupplier clock;
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeOrderedIdGenerator(int node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    public TimeOrderedIdGenerator(int node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE)
+            throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE + ": " + node);
+        this.node = node;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        return toString(nextLong());
+    }
+
+    public long nextLong() {
+        long timestamp = ((clock.getAsLong() - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS);
+        while (true) {
+            long previous = last.get();
+            long next = timestamp > previous ? timestamp : previous + 1;
+            // An exhausted sequence moves on to the next millisecond rather than carrying into the node bits
+            if ((next & SEQUENCE_MASK) == 0 && next != timestamp)
+                next = (((previous >>> (NODE_BITS + SEQUENCE_BITS)) + 1) << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS);
+            if (last.compareAndSet(previous, next))
+                return next;
+        }
+    }
+
+    public static long createdMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static int node(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE;
+    }
+
+    public static String toString(long id) {
+        char[] text = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            text[i] = DIGITS[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(text);
+    }
+
+    public static long parse(String text) {
+        if (text.length() != LENGTH)
+            throw new IllegalArgumentException("Not an id: " + text);
+        long id = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = digit(text.charAt(i));
+            if (digit < 0)
+                throw new IllegalArgumentException("Not an id: " + text);
+            id = (id << 5) | digit;
+        }
+        return id;
+    }
+
+    private static int digit(char c) {
+        for (int i = 0; i < DIGITS.length; i++)
+            if (DIGITS[i] == c)
+                return i;
+        return -1;
+    }
+}
@@ -0,0 +1,43 @@
+package se.sensera.banking.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToLongFunction;
+
+// Small direct-mapped cache from timestamp text to epoch millis. Imports repeat the same minute thousands of
+// times, a hit costs a hash and an equals instead of a parse. A colliding text simply replaces the slot.
+public class TimestampCache {
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final ToLongFunction<String> parser;
+
+    public TimestampCache(int minimumSize, ToLongFunction<String> parser) {
+        int size = Integer.highestOneBit(Math.max(1, minimumSize - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.parser = parser;
+    }
+
+    public long toEpochMillis(String text) {
+        int slot = spread(text.hashCode()) & mask;
+        Entry entry = slots.get(slot);
+        if (entry != null && entry.text.equals(text))
+            return entry.epochMillis;
+        long epochMillis = parser.applyAsLong(text);
+        slots.set(slot, new Entry(text, epochMillis));
+        return epochMillis;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class Entry {
+        final String text;
+        final long epochMillis;
+
+        Entry(String text, long epochMillis) {
+            this.text = text;
+            this.epochMillis = epochMillis;
+        }
+    }
+}
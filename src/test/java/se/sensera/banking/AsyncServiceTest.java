@@ -0,0 +1,79 @@
+package se.sensera.banking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.impl.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AsyncServiceTest {
+
+    ExecutorService executor;
+    AsyncUserService userService;
+    AsyncAccountService accountService;
+    AsyncTransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        UsersRepository usersRepository = new UsersRepositoryImpl();
+        AccountsRepository accountsRepository = new AccountsRepositoryImpl();
+        executor = Executors.newFixedThreadPool(8);
+        userService = new AsyncUserServiceImpl(new UserServiceImpl(usersRepository), executor);
+        accountService = new AsyncAccountServiceImpl(new AccountServiceImpl(usersRepository, accountsRepository), executor);
+        transactionService = new AsyncTransactionServiceImpl(new TransactionServiceImpl(usersRepository, accountsRepository, new TransactionsRepositoryImpl()), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fan_out_balance_lookups_success() throws Exception {
+        // Given
+        User user = userService.createUser("Arne Gunnarsson", "20011010-1234").get();
+        List<Account> accounts = IntStream.range(0, 20)
+                .mapToObj(n -> accountService.createAccount(user.getId(), "account " + n)
+                        .thenCompose(account -> transactionService.createTransaction("2020-01-01 10:00", user.getId(), account.getId(), n)
+                                .thenApply(transaction -> account)))
+                .collect(Collectors.toList())
+                .stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+
+        // When
+        List<CompletableFuture<Double>> sums = accounts.stream()
+                .map(account -> transactionService.sum("2020-01-01 11:00", user.getId(), account.getId()))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(sums.toArray(new CompletableFuture[0])).get();
+
+        // Then
+        assertThat(sums.stream().mapToDouble(CompletableFuture::join).sum(), is(190D));
+        assertThat(accountService.findAccounts("", user.getId(), null, null, AccountService.SortOrder.AccountName).get().size(), is(20));
+    }
+
+    @Test
+    void use_exception_completes_future_exceptionally_success() {
+        // When
+        CompletableFuture<Double> sum = transactionService.sum("2020-01-01 11:00", "unknown", "unknown");
+
+        // Then
+        ExecutionException exception = assertThrows(ExecutionException.class, sum::get);
+        assertThat(exception.getCause(), is(instanceOf(UseException.class)));
+        assertThat(((UseException) exception.getCause()).getUserExceptionType(), is(UseExceptionType.ACCOUNT_NOT_FOUND));
+        assertThat(sum.isCompletedExceptionally(), is(true));
+    }
+}
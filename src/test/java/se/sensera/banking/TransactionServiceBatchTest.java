@@ -0,0 +1,124 @@
+package se.sensera.banking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.impl.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TransactionServiceBatchTest {
+
+    TransactionService transactionService;
+    AccountsRepository accountsRepository;
+    User arne;
+    User lisa;
+    Account arnesAccount;
+    Account lisasAccount;
+
+    @BeforeEach
+    void setUp() {
+        UsersRepository usersRepository = new UsersRepositoryImpl();
+        accountsRepository = new AccountsRepositoryImpl();
+        transactionService = new TransactionServiceImpl(usersRepository, accountsRepository, new TransactionsRepositoryImpl());
+
+        arne = usersRepository.save(new UserImpl(UUID.randomUUID().toString(), "Arne Gunnarsson", "20011010-1234", true));
+        lisa = usersRepository.save(new UserImpl(UUID.randomUUID().toString(), "Lisa Larsson", "20011010-5678", true));
+        arnesAccount = accountsRepository.save(new AccountImpl(UUID.randomUUID().toString(), arne, "arnes", true, new CopyOnWriteArrayList<>()));
+        lisasAccount = accountsRepository.save(new AccountImpl(UUID.randomUUID().toString(), lisa, "lisas", true, new CopyOnWriteArrayList<>()));
+    }
+
+    @Test
+    void batch_reports_each_posting_in_order_success() throws UseException {
+        // Given
+        List<Posting> postings = List.of(
+                new PostingImpl("2020-01-01 10:10", arne.getId(), arnesAccount.getId(), -300D),
+                new PostingImpl("2020-01-01 10:00", arne.getId(), arnesAccount.getId(), 1000D),
+                new PostingImpl("2020-01-01 10:20", lisa.getId(), arnesAccount.getId(), 50D),
+                new PostingImpl("2020-01-01 10:30", lisa.getId(), lisasAccount.getId(), -1D),
+                new PostingImpl("2020-01-01 10:30", arne.getId(), "unknown", 10D),
+                new PostingImpl("2020-01-01 10:40", arne.getId(), arnesAccount.getId(), -800D));
+
+        // When
+        List<PostingResult> results = transactionService.createTransactions(postings);
+
+        // Then
+        assertThat(results.stream().map(PostingResult::getPosting).collect(Collectors.toList()), is(postings));
+        assertThat(results.stream().map(this::outcome).collect(Collectors.toList()),
+                contains("OK", "OK", "NOT_ALLOWED", "NOT_FUNDED", "ACCOUNT_NOT_FOUND", "NOT_FUNDED"));
+        assertThat(results.get(0).getTransaction().get().getAmount(), is(-300D));
+        assertThat(transactionService.sum("2020-01-01 11:00", arne.getId(), arnesAccount.getId()), is(700D));
+    }
+
+    @Test
+    void batch_publishes_every_created_transaction_success() throws Exception {
+        // Given
+        List<Transaction> published = new CopyOnWriteArrayList<>();
+        transactionService.addMonitor(published::add);
+        List<Posting> postings = IntStream.range(0, 1000)
+                .mapToObj(n -> new PostingImpl("2020-01-01 10:00", n % 2 == 0 ? arne.getId() : lisa.getId(),
+                        n % 2 == 0 ? arnesAccount.getId() : lisasAccount.getId(), 1D))
+                .collect(Collectors.toList());
+
+        // When
+        List<PostingResult> results = transactionService.createTransactions(postings);
+
+        // Then
+        assertThat(results.stream().allMatch(PostingResult::isSuccess), is(true));
+        assertThat(transactionService.sum("2020-01-01 10:01", lisa.getId(), lisasAccount.getId()), is(500D));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (published.size() < 1000 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertThat(published.size(), is(1000));
+    }
+
+    @Test
+    void malformed_posting_fails_alone_success() throws UseException {
+        // Given
+        List<Posting> postings = List.of(
+                new PostingImpl("2020-01-01 10:00", arne.getId(), arnesAccount.getId(), 1000D),
+                new PostingImpl("yesterday", arne.getId(), arnesAccount.getId(), 10D),
+                new PostingImpl(null, arne.getId(), arnesAccount.getId(), 10D),
+                new PostingImpl("2020-01-01 10:10", arne.getId(), null, 10D),
+                new PostingImpl("2020-01-01 10:15", arne.getId(), arnesAccount.getId(), 0.005D),
+                new PostingImpl("2020-01-01 10:20", arne.getId(), arnesAccount.getId(), -100D));
+
+        // When
+        List<PostingResult> results = transactionService.createTransactions(postings);
+
+        // Then
+        assertThat(results.stream().map(this::outcome).collect(Collectors.toList()),
+                contains("OK", "INVALID_DATE", "INVALID_DATE", "ACCOUNT_NOT_FOUND", "INVALID_AMOUNT", "OK"));
+        assertThat(transactionService.sum("2020-01-01 11:00", arne.getId(), arnesAccount.getId()), is(900D));
+    }
+
+    @Test
+    void rejected_postings_share_their_result_success() {
+        // Given
+        List<Posting> postings = IntStream.range(0, 10)
+                .mapToObj(n -> new PostingImpl("2020-01-01 10:00", lisa.getId(), arnesAccount.getId(), 1D))
+                .collect(Collectors.toList());
+
+        // When
+        List<PostingResult> results = transactionService.createTransactions(postings);
+
+        // Then
+        assertThat(results.get(0).getResult().getFailure(), is(UseExceptionType.NOT_ALLOWED));
+        assertThat(results.stream().map(PostingResult::getResult).distinct().count(), is(1L));
+    }
+
+    private String outcome(PostingResult result) {
+        return result.getFailure()
+                .map(UseException::getUserExceptionType)
+                .map(UseExceptionType::name)
+                .orElse("OK");
+    }
+}
@@ -0,0 +1,112 @@
+package se.sensera.banking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.impl.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TransactionServiceContentionTest {
+    static final String FUNDED = "2020-01-01 10:00";
+    static final String CREATED = "2020-01-01 10:34";
+    static final String LATER = "2020-01-01 10:35";
+    static final int THREADS = 16;
+
+    TransactionService transactionService;
+
+    UsersRepository usersRepository;
+    AccountsRepository accountsRepository;
+    TransactionsRepository transactionsRepository;
+    ExecutorService executor;
+    User user;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl();
+        accountsRepository = new AccountsRepositoryImpl();
+        transactionsRepository = new TransactionsRepositoryImpl();
+        transactionService = new TransactionServiceImpl(usersRepository, accountsRepository, transactionsRepository);
+        executor = Executors.newFixedThreadPool(THREADS);
+
+        user = usersRepository.save(new UserImpl(UUID.randomUUID().toString(), "Arne Arnesson", "9283749238472", true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void parallel_withdrawals_on_same_account_never_overdraw_success() throws Exception {
+        // Given
+        Account account = createAccount("default");
+        transactionService.createTransaction(FUNDED, user.getId(), account.getId(), 1000D);
+        int count = 1000;
+        AtomicInteger notFunded = new AtomicInteger();
+
+        // When
+        runAll(IntStream.range(0, count)
+                .mapToObj(n -> (Callable<Void>) () -> {
+                    try {
+                        transactionService.createTransaction(CREATED, user.getId(), account.getId(), -10D);
+                    } catch (UseException e) {
+                        if (e.getUserExceptionType() == UseExceptionType.NOT_FUNDED)
+                            notFunded.incrementAndGet();
+                    }
+                    return null;
+                })
+                .collect(Collectors.toList()));
+
+        // Then
+        assertThat(notFunded.get(), is(count - 100));
+        assertThat(transactionService.sum(LATER, user.getId(), account.getId()), is(0D));
+    }
+
+    @Test
+    void parallel_transactions_on_many_accounts_success() throws Exception {
+        // Given
+        int accounts = 1000;
+        int perAccount = 20;
+        List<Account> accountList = IntStream.range(0, accounts)
+                .mapToObj(n -> createAccount("account " + n))
+                .collect(Collectors.toList());
+
+        // When
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < perAccount; i++)
+            accountList.forEach(account -> tasks.add(() -> {
+                transactionService.createTransaction(CREATED, user.getId(), account.getId(), 100D);
+                return null;
+            }));
+        long duration = runAll(tasks);
+
+        // Then
+        assertThat(transactionsRepository.all().count(), is((long) accounts * perAccount));
+        for (Account account : accountList)
+            assertThat(transactionService.sum(LATER, user.getId(), account.getId()), is(100D * perAccount));
+        assertThat(duration, is(lessThanOrEqualTo(30000L)));
+    }
+
+    private Account createAccount(String name) {
+        return accountsRepository.save(new AccountImpl(UUID.randomUUID().toString(), user, name, true, new ArrayList<>()));
+    }
+
+    private long runAll(List<Callable<Void>> tasks) throws InterruptedException, ExecutionException {
+        long start = System.currentTimeMillis();
+        for (Future<Void> future : executor.invokeAll(tasks))
+            future.get();
+        return System.currentTimeMillis() - start;
+    }
+}
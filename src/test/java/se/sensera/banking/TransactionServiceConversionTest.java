@@ -0,0 +1,97 @@
+package se.sensera.banking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.impl.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TransactionServiceConversionTest {
+    static final String FUNDED = "2020-01-01 10:00";
+    static final String CREATED = "2020-01-01 10:34";
+    static final String LATER = "2020-01-01 10:35";
+
+    TransactionService transactionService;
+
+    UsersRepository usersRepository;
+    AccountsRepository accountsRepository;
+    TransactionsRepository transactionsRepository;
+    User user;
+    Account account;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl();
+        accountsRepository = new AccountsRepositoryImpl();
+        transactionsRepository = new TransactionsRepositoryImpl();
+        transactionService = new TransactionServiceImpl(usersRepository, accountsRepository, transactionsRepository);
+
+        user = usersRepository.save(new UserImpl(UUID.randomUUID().toString(), "Arne Arnesson", "9283749238472", true));
+        account = accountsRepository.save(new AccountImpl(UUID.randomUUID().toString(), user, "default", true, new ArrayList<>()));
+    }
+
+    @Test
+    void small_deposits_add_up_exactly_success() throws UseException {
+        // Given
+        int count = 10000;
+
+        // When
+        for (int i = 0; i < count; i++)
+            transactionService.createTransaction(CREATED, user.getId(), account.getId(), 0.1D);
+
+        // Then
+        assertThat(transactionService.sumMinorUnits(LATER, user.getId(), account.getId()), is(100000L));
+        assertThat(transactionService.sum(LATER, user.getId(), account.getId()), is(1000D));
+    }
+
+    @Test
+    void instant_and_text_timestamps_agree_success() throws UseException {
+        // Given
+        Instant funded = LocalDateTime.parse(FUNDED, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
+                .atZone(ZoneId.systemDefault())
+                .toInstant();
+
+        // When
+        Transaction transaction = transactionService.createTransaction(funded, user.getId(), account.getId(), 500D);
+
+        // Then
+        assertThat(transaction.getCreatedMillis(), is(funded.toEpochMilli()));
+        assertThat(transactionService.sum(FUNDED, user.getId(), account.getId()), is(0D));
+        assertThat(transactionService.sum(funded.plusMillis(1), user.getId(), account.getId()), is(500D));
+        assertThat(transactionService.sum(CREATED, user.getId(), account.getId()), is(500D));
+    }
+
+    @Test
+    void stored_sub_cent_amount_is_rounded_half_to_even_success() throws UseException {
+        // Given
+        transactionsRepository.save(new TransactionImpl("stored", new Date(0), user, account, 10.005D));
+
+        // When
+        double sum = transactionService.sum(LATER, user.getId(), account.getId());
+
+        // Then
+        assertThat(sum, is(10D));
+    }
+
+    @Test
+    void new_sub_cent_amount_is_rejected_failure() {
+        // When
+        UseException exception = assertThrows(UseException.class,
+                () -> transactionService.createTransaction(CREATED, user.getId(), account.getId(), 10.005D));
+
+        // Then
+        assertThat(exception.getUserExceptionType(), is(UseExceptionType.INVALID_AMOUNT));
+    }
+}
@@ -0,0 +1,207 @@
+package se.sensera.banking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.impl.AccountServiceImpl;
+import se.sensera.banking.impl.AccountsRepositoryImpl;
+import se.sensera.banking.impl.UserServiceImpl;
+import se.sensera.banking.impl.UsersRepositoryImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UniqueClaimRollbackTest {
+
+    boolean failSaves;
+    Runnable duringFailedSave = () -> { };
+    UsersRepositoryImpl usersRepository;
+    AccountsRepositoryImpl accountsRepository;
+    UserService userService;
+    AccountService accountService;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl() {
+            @Override
+            public User save(User entity) {
+                if (failSaves) {
+                    duringFailedSave.run();
+                    throw new IllegalStateException("Store is down");
+                }
+                return super.save(entity);
+            }
+        };
+        accountsRepository = new AccountsRepositoryImpl() {
+            @Override
+            public Account save(Account entity) {
+                if (failSaves) {
+                    duringFailedSave.run();
+                    throw new IllegalStateException("Store is down");
+                }
+                return super.save(entity);
+            }
+        };
+        userService = new UserServiceImpl(usersRepository);
+        accountService = new AccountServiceImpl(usersRepository, accountsRepository);
+    }
+
+    @Test
+    void failed_create_user_releases_personal_id_success() throws UseException {
+        // Given
+        failSaves = true;
+        assertThrows(IllegalStateException.class, () -> userService.createUser("Arne Gunnarsson", "20011010-1234"));
+
+        // When
+        failSaves = false;
+        User user = userService.createUser("Arne Gunnarsson", "20011010-1234");
+
+        // Then
+        assertThat(usersRepository.getPersonalIdentificationNumberIndex().getOwner("20011010-1234").get(), is(user.getId()));
+    }
+
+    @Test
+    void failed_change_user_restores_personal_id_success() throws UseException {
+        // Given
+        User user = userService.createUser("Arne Gunnarsson", "20011010-1234");
+        failSaves = true;
+
+        // When
+        assertThrows(IllegalStateException.class, () -> userService.changeUser(user.getId(), changeUser -> {
+            try {
+                changeUser.setPersonalIdentificationNumber("20011010-5678");
+            } catch (UseException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+
+        // Then
+        assertThat(user.getPersonalIdentificationNumber(), is("20011010-1234"));
+        assertThat(usersRepository.getPersonalIdentificationNumberIndex().getOwner("20011010-1234").get(), is(user.getId()));
+        assertThat(usersRepository.getPersonalIdentificationNumberIndex().contains("20011010-5678"), is(false));
+    }
+
+    @Test
+    void previous_personal_id_stays_taken_during_failed_change_success() throws UseException {
+        // Given
+        User user = userService.createUser("Arne Gunnarsson", "20011010-1234");
+        List<Exception> otherClient = new ArrayList<>();
+        duringFailedSave = () -> {
+            duringFailedSave = () -> { };
+            try {
+                userService.createUser("Bertil Bengtsson", "20011010-1234");
+            } catch (Exception e) {
+                otherClient.add(e);
+            }
+        };
+        failSaves = true;
+
+        // When
+        assertThrows(IllegalStateException.class, () -> userService.changeUser(user.getId(), changeUser -> {
+            try {
+                changeUser.setPersonalIdentificationNumber("20011010-5678");
+            } catch (UseException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+
+        // Then
+        assertThat(otherClient.size(), is(1));
+        assertThat(((UseException) otherClient.get(0)).getUserExceptionType(), is(UseExceptionType.USER_PERSONAL_ID_NOT_UNIQUE));
+        assertThat(usersRepository.getPersonalIdentificationNumberIndex().getOwner("20011010-1234").get(), is(user.getId()));
+        assertThat(usersRepository.getPersonalIdentificationNumberIndex().contains("20011010-5678"), is(false));
+    }
+
+    @Test
+    void successful_change_user_gives_up_previous_personal_id_success() throws UseException {
+        // Given
+        User user = userService.createUser("Arne Gunnarsson", "20011010-1234");
+
+        // When
+        userService.changeUser(user.getId(), changeUser -> {
+            try {
+                changeUser.setPersonalIdentificationNumber("20011010-5678");
+            } catch (UseException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        // Then
+        assertThat(usersRepository.getPersonalIdentificationNumberIndex().getOwner("20011010-5678").get(), is(user.getId()));
+        assertThat(usersRepository.getPersonalIdentificationNumberIndex().contains("20011010-1234"), is(false));
+    }
+
+    @Test
+    void failed_change_account_restores_name_success() throws UseException {
+        // Given
+        User user = userService.createUser("Arne Gunnarsson", "20011010-1234");
+        Account account = accountService.createAccount(user.getId(), "savings");
+        failSaves = true;
+
+        // When
+        assertThrows(IllegalStateException.class, () -> accountService.changeAccount(user.getId(), account.getId(), changeAccount -> {
+            try {
+                changeAccount.setName("spending");
+            } catch (UseException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+
+        // Then
+        assertThat(account.getName(), is("savings"));
+        assertThat(accountsRepository.getNameIndex().getOwner("savings").get(), is(account.getId()));
+        assertThat(accountsRepository.getNameIndex().contains("spending"), is(false));
+    }
+
+    @Test
+    void previous_account_name_stays_taken_during_failed_change_success() throws UseException {
+        // Given
+        User user = userService.createUser("Arne Gunnarsson", "20011010-1234");
+        Account account = accountService.createAccount(user.getId(), "savings");
+        List<Exception> otherClient = new ArrayList<>();
+        duringFailedSave = () -> {
+            duringFailedSave = () -> { };
+            try {
+                accountService.createAccount(user.getId(), "savings");
+            } catch (Exception e) {
+                otherClient.add(e);
+            }
+        };
+        failSaves = true;
+
+        // When
+        assertThrows(IllegalStateException.class, () -> accountService.changeAccount(user.getId(), account.getId(), changeAccount -> {
+            try {
+                changeAccount.setName("spending");
+            } catch (UseException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+
+        // Then
+        assertThat(otherClient.size(), is(1));
+        assertThat(((UseException) otherClient.get(0)).getUserExceptionType(), is(UseExceptionType.ACCOUNT_NAME_NOT_UNIQUE));
+        assertThat(accountsRepository.getNameIndex().getOwner("savings").get(), is(account.getId()));
+        assertThat(accountsRepository.getNameIndex().contains("spending"), is(false));
+    }
+
+    @Test
+    void failed_create_account_releases_name_success() throws UseException {
+        // Given
+        User user = userService.createUser("Arne Gunnarsson", "20011010-1234");
+        failSaves = true;
+        assertThrows(IllegalStateException.class, () -> accountService.createAccount(user.getId(), "savings"));
+
+        // When
+        failSaves = false;
+        Account account = accountService.createAccount(user.getId(), "savings");
+
+        // Then
+        assertThat(accountsRepository.getNameIndex().getOwner("savings").get(), is(account.getId()));
+    }
+}
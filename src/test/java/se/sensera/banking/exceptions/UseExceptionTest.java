@@ -0,0 +1,73 @@
+package se.sensera.banking.exceptions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.Account;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.TransactionService;
+import se.sensera.banking.User;
+import se.sensera.banking.impl.*;
+
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UseExceptionTest {
+
+    @AfterEach
+    void tearDown() {
+        UseException.setStackTraces(true);
+    }
+
+    @Test
+    void stackless_mode_skips_stack_trace_success() {
+        // Given
+        UseException.setStackTraces(false);
+
+        // When
+        UseException exception = new UseException(Activity.CREATE_TRANSACTION, UseExceptionType.NOT_FUNDED);
+
+        // Then
+        assertThat(exception.getStackTrace().length, is(0));
+        assertThat(exception.getMessage(), is("CREATE_TRANSACTION failed because NOT_FUNDED"));
+    }
+
+    @Test
+    void default_mode_keeps_stack_trace_success() {
+        // When
+        UseException exception = new UseException(Activity.SUM_TRANSACTION, UseExceptionType.NOT_ALLOWED);
+
+        // Then
+        assertThat(exception.getStackTrace().length, is(greaterThan(0)));
+        assertThat(exception.toString(), endsWith("SUM_TRANSACTION failed because NOT_ALLOWED"));
+    }
+
+    @Test
+    void try_variants_report_failures_without_throwing_success() throws UseException {
+        // Given
+        UsersRepositoryImpl usersRepository = new UsersRepositoryImpl();
+        AccountsRepositoryImpl accountsRepository = new AccountsRepositoryImpl();
+        TransactionService transactionService = new TransactionServiceImpl(usersRepository, accountsRepository, new TransactionsRepositoryImpl());
+        User user = usersRepository.save(new UserImpl(UUID.randomUUID().toString(), "Arne Gunnarsson", "20011010-1234", true));
+        Account account = accountsRepository.save(new AccountImpl(UUID.randomUUID().toString(), user, "default", true, new CopyOnWriteArrayList<>()));
+
+        // When
+        UseResult<Transaction> deposit = transactionService.tryCreateTransaction("2020-01-01 10:00", user.getId(), account.getId(), 100D);
+        UseResult<Transaction> overdraw = transactionService.tryCreateTransaction("2020-01-01 10:10", user.getId(), account.getId(), -500D);
+        UseResult<Transaction> otherOverdraw = transactionService.tryCreateTransaction("2020-01-01 10:20", user.getId(), account.getId(), -600D);
+        UseResult<Long> notAllowed = transactionService.trySumMinorUnits("2020-01-01 11:00", "other", account.getId());
+
+        // Then
+        assertThat(deposit.isSuccess(), is(true));
+        assertThat(overdraw.getFailure(), is(UseExceptionType.NOT_FUNDED));
+        assertThat(otherOverdraw, is(sameInstance(overdraw)));
+        assertThat(notAllowed.getFailure(), is(UseExceptionType.NOT_ALLOWED));
+        assertThat(notAllowed.orElse(-1L), is(-1L));
+        UseException exception = assertThrows(UseException.class, overdraw::get);
+        assertThat(exception.getActivity(), is(Activity.CREATE_TRANSACTION));
+        assertThat(transactionService.trySumMinorUnits("2020-01-01 11:00", user.getId(), account.getId()).get(), is(10000L));
+    }
+}
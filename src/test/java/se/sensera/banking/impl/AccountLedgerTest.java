@@ -0,0 +1,75 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class AccountLedgerTest {
+
+    AccountLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new AccountLedger();
+    }
+
+    @Test
+    void balance_of_empty_ledger_success() {
+        assertThat(ledger.balanceBefore(1000), is(0L));
+    }
+
+    @Test
+    void balance_before_is_exclusive_success() {
+        // Given
+        ledger.add(10, 200);
+        ledger.add(20, 400);
+        ledger.add(30, 350);
+
+        // Then
+        assertThat(ledger.balanceBefore(10), is(0L));
+        assertThat(ledger.balanceBefore(11), is(200L));
+        assertThat(ledger.balanceBefore(20), is(200L));
+        assertThat(ledger.balanceBefore(30), is(600L));
+        assertThat(ledger.balanceBefore(31), is(950L));
+    }
+
+    @Test
+    void balance_at_is_inclusive_success() {
+        // Given
+        ledger.add(10, 200);
+        ledger.add(20, 400);
+
+        // Then
+        assertThat(ledger.balanceAt(9), is(0L));
+        assertThat(ledger.balanceAt(10), is(200L));
+        assertThat(ledger.balanceAt(20), is(600L));
+    }
+
+    @Test
+    void add_out_of_order_success() {
+        // Given
+        ledger.add(30, 350);
+        ledger.add(10, 200);
+        ledger.add(20, 400);
+        ledger.add(20, -100);
+
+        // Then
+        assertThat(ledger.size(), is(4));
+        assertThat(ledger.balanceBefore(20), is(200L));
+        assertThat(ledger.balanceBefore(21), is(500L));
+        assertThat(ledger.balanceBefore(31), is(850L));
+    }
+
+    @Test
+    void add_many_grows_success() {
+        // Given
+        for (int i = 0; i < 1000; i++)
+            ledger.add(i, 1);
+
+        // Then
+        assertThat(ledger.size(), is(1000));
+        assertThat(ledger.balanceBefore(500), is(500L));
+    }
+}
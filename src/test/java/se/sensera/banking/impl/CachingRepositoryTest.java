@@ -0,0 +1,158 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.User;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class CachingRepositoryTest {
+
+    AtomicInteger loads;
+    UsersRepositoryImpl usersRepository;
+
+    @BeforeEach
+    void setUp() {
+        loads = new AtomicInteger();
+        usersRepository = new UsersRepositoryImpl() {
+            @Override
+            public Optional<User> getEntityById(String id) {
+                loads.incrementAndGet();
+                return super.getEntityById(id);
+            }
+        };
+        IntStream.range(0, 100).forEach(n -> usersRepository.save(new UserImpl(String.valueOf(n), "User " + n, "pnr" + n, true)));
+    }
+
+    @Test
+    void repeated_reads_are_served_from_the_cache_success() {
+        // Given
+        CachingUsersRepository cache = new CachingUsersRepository(usersRepository, 10, CachingRepository.EvictionPolicy.LRU);
+
+        // When
+        IntStream.range(0, 50).forEach(n -> assertThat(cache.getEntityById("7").get().getName(), is("User 7")));
+
+        // Then
+        assertThat(loads.get(), is(1));
+        assertThat(cache.getHitCount(), is(49L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    void lru_evicts_least_recently_used_success() {
+        // Given
+        CachingUsersRepository cache = new CachingUsersRepository(usersRepository, 2, CachingRepository.EvictionPolicy.LRU);
+        cache.getEntityById("1");
+        cache.getEntityById("2");
+        cache.getEntityById("1");
+
+        // When
+        cache.getEntityById("3");
+        loads.set(0);
+        cache.getEntityById("1");
+        cache.getEntityById("2");
+
+        // Then
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getEvictionCount(), is(2L));
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    void tiny_lfu_keeps_popular_entities_during_a_scan_success() {
+        // Given
+        CachingUsersRepository cache = new CachingUsersRepository(usersRepository, 5, CachingRepository.EvictionPolicy.TINY_LFU);
+        IntStream.range(0, 20).forEach(round -> IntStream.range(0, 5).forEach(n -> cache.getEntityById(String.valueOf(n))));
+
+        // When
+        IntStream.range(5, 100).forEach(n -> cache.getEntityById(String.valueOf(n)));
+        loads.set(0);
+        IntStream.range(0, 5).forEach(n -> cache.getEntityById(String.valueOf(n)));
+
+        // Then
+        assertThat(loads.get(), is(0));
+        assertThat(cache.getRejectedCount(), is(95L));
+    }
+
+    @Test
+    void save_and_delete_write_through_success() {
+        // Given
+        CachingUsersRepository cache = new CachingUsersRepository(usersRepository, 10, CachingRepository.EvictionPolicy.LRU);
+        UserImpl user = new UserImpl("new", "Arne Gunnarsson", "20011010-1234", true);
+
+        // When
+        cache.save(user);
+
+        // Then
+        assertThat(usersRepository.getEntityById("new").get(), is(sameInstance(user)));
+        loads.set(0);
+        assertThat(cache.getEntityById("new").get(), is(sameInstance(user)));
+        assertThat(loads.get(), is(0));
+
+        // When
+        cache.delete(user);
+
+        // Then
+        assertThat(cache.getEntityById("new").isPresent(), is(false));
+        assertThat(usersRepository.all().anyMatch(u -> u.getId().equals("new")), is(false));
+    }
+
+    @Test
+    void delete_during_save_is_not_overwritten_by_the_save_success() throws InterruptedException {
+        // Given
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UsersRepositoryImpl slowRepository = new UsersRepositoryImpl() {
+            @Override
+            public User save(User entity) {
+                User user = super.save(entity);
+                saved.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return user;
+            }
+        };
+        CachingUsersRepository cache = new CachingUsersRepository(slowRepository, 10, CachingRepository.EvictionPolicy.LRU);
+        UserImpl user = new UserImpl("racy", "Arne Gunnarsson", "20011010-1234", true);
+        Thread saver = new Thread(() -> cache.save(user));
+        Thread deleter = new Thread(() -> cache.delete(user));
+
+        // When
+        saver.start();
+        saved.await();
+        deleter.start();
+        while (deleter.getState() == Thread.State.NEW || deleter.getState() == Thread.State.RUNNABLE)
+            Thread.sleep(1);
+        release.countDown();
+        saver.join();
+        deleter.join();
+
+        // Then
+        assertThat(slowRepository.all().count(), is(0L));
+        assertThat(cache.getEntityById("racy").isPresent(), is(false));
+    }
+
+    @Test
+    void parallel_reads_stay_within_capacity_success() {
+        // Given
+        CachingUsersRepository cache = new CachingUsersRepository(usersRepository, 16, CachingRepository.EvictionPolicy.TINY_LFU);
+
+        // When
+        IntStream.range(0, 100000)
+                .parallel()
+                .forEach(n -> assertThat(cache.getEntityById(String.valueOf(n % 100)).get().getId(), is(String.valueOf(n % 100))));
+
+        // Then
+        assertThat(cache.size(), lessThanOrEqualTo(16));
+        assertThat(cache.getHitCount() + cache.getMissCount(), is(100000L));
+    }
+}
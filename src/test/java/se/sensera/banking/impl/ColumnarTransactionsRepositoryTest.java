@@ -0,0 +1,89 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.Account;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.TransactionService;
+import se.sensera.banking.User;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ColumnarTransactionsRepositoryTest {
+
+    ColumnarTransactionsRepository repository;
+    User user;
+    Account account;
+    Account otherAccount;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ColumnarTransactionsRepository();
+        user = new UserImpl(UUID.randomUUID().toString(), "Arne Gunnarsson", "20011010-1234", true);
+        account = new AccountImpl(UUID.randomUUID().toString(), user, "default", true, new CopyOnWriteArrayList<>());
+        otherAccount = new AccountImpl(UUID.randomUUID().toString(), user, "other", true, new CopyOnWriteArrayList<>());
+    }
+
+    @Test
+    void views_read_back_saved_rows_success() {
+        // Given
+        IntStream.range(0, 5000)
+                .forEach(n -> repository.save(new TransactionImpl(String.valueOf(n), new Date(n), user, n % 2 == 0 ? account : otherAccount, n)));
+
+        // When
+        Transaction transaction = repository.getEntityById("4001").get();
+
+        // Then
+        assertThat(repository.size(), is(5000));
+        assertThat(transaction.getCreated().getTime(), is(4001L));
+        assertThat(transaction.getAmount(), is(4001D));
+        assertThat(transaction.getUser(), is(sameInstance(user)));
+        assertThat(transaction.getAccount(), is(sameInstance(otherAccount)));
+        assertThat(repository.all().limit(3).map(Transaction::getId).collect(Collectors.toList()), contains("0", "1", "2"));
+    }
+
+    @Test
+    void scan_and_all_skip_deleted_success() {
+        // Given
+        repository.save(new TransactionImpl("1", new Date(1000), user, account, 100));
+        Transaction deleted = repository.save(new TransactionImpl("2", new Date(2000), user, account, 200));
+        repository.save(new TransactionImpl("3", new Date(3000), user, otherAccount, 300));
+        repository.save(new TransactionImpl("4", new Date(4000), user, account, 400));
+
+        // When
+        repository.delete(deleted);
+
+        // Then
+        assertThat(repository.all().map(Transaction::getId).collect(Collectors.toList()), contains("1", "3", "4"));
+        assertThat(repository.getEntityById("2").isPresent(), is(false));
+        List<String> scanned = new CopyOnWriteArrayList<>();
+        repository.scan((accountId, createdMillis, amount) -> scanned.add(accountId + ":" + amount));
+        assertThat(scanned, contains(account.getId() + ":10000", otherAccount.getId() + ":30000", account.getId() + ":40000"));
+    }
+
+    @Test
+    void transaction_service_on_columnar_store_success() throws Exception {
+        // Given
+        UsersRepositoryImpl usersRepository = new UsersRepositoryImpl();
+        AccountsRepositoryImpl accountsRepository = new AccountsRepositoryImpl();
+        usersRepository.save(user);
+        accountsRepository.save(account);
+        TransactionService transactionService = new TransactionServiceImpl(usersRepository, accountsRepository, repository);
+
+        // When
+        transactionService.createTransaction("2020-01-01 10:00", user.getId(), account.getId(), 1000D);
+        transactionService.createTransaction("2020-01-01 10:10", user.getId(), account.getId(), -400D);
+
+        // Then
+        assertThat(transactionService.sum("2020-01-01 11:00", user.getId(), account.getId()), is(600D));
+        assertThat(repository.all().map(Transaction::getAmount).collect(Collectors.toList()), contains(1000D, -400D));
+    }
+}
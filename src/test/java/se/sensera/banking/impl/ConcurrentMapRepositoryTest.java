@@ -0,0 +1,104 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.User;
+import se.sensera.banking.exceptions.CriticalError;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrentMapRepositoryTest {
+
+    UsersRepositoryImpl usersRepository;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl();
+    }
+
+    @Test
+    void save_twice_is_upsert_success() {
+        // Given
+        UserImpl user = new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true);
+        usersRepository.save(user);
+
+        // When
+        user.setName("Arne Andersson");
+        usersRepository.save(user);
+
+        // Then
+        List<User> users = usersRepository.all().collect(Collectors.toList());
+        assertThat(users, contains(user));
+        assertThat(usersRepository.getEntityById("1").get().getName(), is("Arne Andersson"));
+    }
+
+    @Test
+    void delete_with_a_copy_removes_the_stored_entity_success() {
+        // Given
+        usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+
+        // When
+        usersRepository.delete(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+
+        // Then
+        assertThat(usersRepository.getEntityById("1").isPresent(), is(false));
+        assertThat(usersRepository.getPersonalIdentificationNumberIndex().contains("20011010-1234"), is(false));
+        assertThat(usersRepository.size(), is(0));
+    }
+
+    @Test
+    void delete_success() {
+        // Given
+        UserImpl user = new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true);
+        usersRepository.save(user);
+
+        // When
+        usersRepository.delete(user);
+
+        // Then
+        assertThat(usersRepository.getEntityById("1").isPresent(), is(false));
+        assertThat(usersRepository.size(), is(0));
+    }
+
+    @Test
+    void parallel_save_success() {
+        // When
+        IntStream.range(0, 10000)
+                .parallel()
+                .forEach(n -> usersRepository.save(new UserImpl(String.valueOf(n), "User " + n, String.valueOf(n), true)));
+
+        // Then
+        assertThat(usersRepository.size(), is(10000));
+        assertThat(usersRepository.getEntityById("4711").map(User::getName).orElse(null), is("User 4711"));
+    }
+
+    @Test
+    void failed_journal_append_leaves_indexes_untouched_failure() {
+        // Given
+        usersRepository.setJournal(new Journal<>() {
+            @Override
+            public void saved(User entity, Runnable apply) {
+                throw new CriticalError("disk full", null);
+            }
+
+            @Override
+            public void deleted(User entity, Runnable apply) {
+                apply.run();
+            }
+        });
+
+        // When
+        assertThrows(CriticalError.class, () -> usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true)));
+
+        // Then
+        assertThat(usersRepository.getEntityById("1").isPresent(), is(false));
+        assertThat(usersRepository.getPersonalIdentificationNumberIndex().contains("20011010-1234"), is(false));
+        assertThat(usersRepository.getSearchIndex().search("Arne").count(), is(0L));
+    }
+}
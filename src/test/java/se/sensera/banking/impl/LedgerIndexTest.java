@@ -0,0 +1,64 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.Account;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.TransactionService;
+import se.sensera.banking.User;
+import se.sensera.banking.exceptions.UseException;
+
+import java.util.ArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class LedgerIndexTest {
+    static final String CREATED = "2020-01-01 10:34";
+    static final String LATER = "2020-01-01 10:35";
+
+    UsersRepositoryImpl usersRepository;
+    AccountsRepositoryImpl accountsRepository;
+    TransactionsRepositoryImpl transactionsRepository;
+    User user;
+    Account account;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl();
+        accountsRepository = new AccountsRepositoryImpl();
+        transactionsRepository = new TransactionsRepositoryImpl();
+        user = usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+        account = accountsRepository.save(new AccountImpl("10", user, "default", true, new ArrayList<>()));
+    }
+
+    @Test
+    void service_sees_transactions_saved_by_another_service_success() throws UseException {
+        // Given
+        TransactionService reader = new TransactionServiceImpl(usersRepository, accountsRepository, transactionsRepository);
+        TransactionService writer = new TransactionServiceImpl(usersRepository, accountsRepository, transactionsRepository);
+        assertThat(reader.sum(LATER, user.getId(), account.getId()), is(0D));
+
+        // When
+        writer.createTransaction(CREATED, user.getId(), account.getId(), 100D);
+        transactionsRepository.save(TransactionImpl.ofMinorUnits("t1", 0, user, account, 5000));
+
+        // Then
+        assertThat(reader.sum(LATER, user.getId(), account.getId()), is(150D));
+    }
+
+    @Test
+    void save_again_and_delete_keep_the_balance_success() {
+        // Given
+        Transaction transaction = transactionsRepository.save(TransactionImpl.ofMinorUnits("t1", 0, user, account, 5000));
+
+        // When
+        transactionsRepository.save(TransactionImpl.ofMinorUnits("t1", 0, user, account, 5000));
+        long afterSave = transactionsRepository.getLedgerIndex().getLedger(account.getId()).balanceAt(0);
+        transactionsRepository.delete(transaction);
+
+        // Then
+        assertThat(afterSave, is(5000L));
+        assertThat(transactionsRepository.getLedgerIndex().getLedger(account.getId()).balanceAt(0), is(0L));
+    }
+}
@@ -0,0 +1,135 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.sensera.banking.Account;
+import se.sensera.banking.Transaction;
+import se.sensera.banking.TransactionService;
+import se.sensera.banking.User;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class MappedTransactionsRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    UsersRepositoryImpl usersRepository;
+    AccountsRepositoryImpl accountsRepository;
+    User user;
+    Account account;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl();
+        accountsRepository = new AccountsRepositoryImpl();
+        user = usersRepository.save(new UserImpl(UUID.randomUUID().toString(), "Arne Gunnarsson", "20011010-1234", true));
+        account = accountsRepository.save(new AccountImpl(UUID.randomUUID().toString(), user, "default", true, new CopyOnWriteArrayList<>()));
+    }
+
+    @Test
+    void reopen_keeps_records_across_segments_success() {
+        // Given
+        try (MappedTransactionsRepository repository = new MappedTransactionsRepository(directory, 4, usersRepository, accountsRepository)) {
+            for (int n = 0; n < 10; n++)
+                repository.save(new TransactionImpl(String.valueOf(n), new Date(1000L * n), user, account, n));
+        }
+
+        // When
+        try (MappedTransactionsRepository repository = new MappedTransactionsRepository(directory, 4, usersRepository, accountsRepository)) {
+
+            // Then
+            assertThat(repository.size(), is(10L));
+            List<Transaction> transactions = repository.all().collect(Collectors.toList());
+            assertThat(transactions.stream().map(Transaction::getId).collect(Collectors.toList()),
+                    contains("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"));
+            Transaction transaction = repository.getEntityById("7").get();
+            assertThat(transaction.getCreated().getTime(), is(7000L));
+            assertThat(transaction.getAmount(), is(7D));
+            assertThat(transaction.getUser(), is(user));
+            assertThat(transaction.getAccount(), is(account));
+        }
+    }
+
+    @Test
+    void delete_and_scan_success() {
+        // Given
+        try (MappedTransactionsRepository repository = new MappedTransactionsRepository(directory, usersRepository, accountsRepository)) {
+            repository.save(new TransactionImpl("1", new Date(1000), user, account, 100));
+            Transaction removed = repository.save(new TransactionImpl("2", new Date(2000), user, account, 200));
+            repository.save(new TransactionImpl("3", new Date(3000), user, account, 300));
+
+            // When
+            repository.delete(removed);
+
+            // Then
+            List<Long> amounts = new ArrayList<>();
+            repository.scan((accountId, createdMillis, amount) -> {
+                assertThat(accountId, is(account.getId()));
+                amounts.add(amount);
+            });
+            assertThat(amounts, contains(10000L, 30000L));
+            assertThat(repository.getEntityById("2").isPresent(), is(false));
+        }
+    }
+
+    @Test
+    void delete_on_one_thread_is_seen_by_a_scan_on_another_success() throws Exception {
+        // Given
+        try (MappedTransactionsRepository repository = new MappedTransactionsRepository(directory, usersRepository, accountsRepository)) {
+            repository.save(new TransactionImpl("1", new Date(1000), user, account, 100));
+            Transaction removed = repository.save(new TransactionImpl("2", new Date(2000), user, account, 200));
+            AtomicLong seen = new AtomicLong(-1);
+            Thread scanner = new Thread(() -> {
+                long deadline = System.currentTimeMillis() + 5000;
+                long total;
+                do {
+                    LongAdder sum = new LongAdder();
+                    repository.scan((accountId, createdMillis, amount) -> sum.add(amount));
+                    total = sum.sum();
+                } while (total != 10000L && System.currentTimeMillis() < deadline);
+                seen.set(total);
+            });
+            scanner.start();
+
+            // When
+            Thread deleter = new Thread(() -> repository.delete(removed));
+            deleter.start();
+            deleter.join();
+            scanner.join();
+
+            // Then
+            assertThat(seen.get(), is(10000L));
+        }
+    }
+
+    @Test
+    void transaction_service_sum_after_reopen_success() throws Exception {
+        // Given
+        try (MappedTransactionsRepository repository = new MappedTransactionsRepository(directory, usersRepository, accountsRepository)) {
+            TransactionService transactionService = new TransactionServiceImpl(usersRepository, accountsRepository, repository);
+            transactionService.createTransaction("2020-01-01 10:00", user.getId(), account.getId(), 1000D);
+            transactionService.createTransaction("2020-01-01 10:10", user.getId(), account.getId(), -250D);
+        }
+
+        // When
+        try (MappedTransactionsRepository repository = new MappedTransactionsRepository(directory, usersRepository, accountsRepository)) {
+            TransactionService transactionService = new TransactionServiceImpl(usersRepository, accountsRepository, repository);
+
+            // Then
+            assertThat(transactionService.sum("2020-01-01 11:00", user.getId(), account.getId()), is(750D));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class MonitorDispatcherTest {
+
+    MonitorDispatcher<Integer> dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.close();
+    }
+
+    @Test
+    void every_monitor_receives_events_in_order_success() throws InterruptedException {
+        // Given
+        dispatcher = new MonitorDispatcher<>(3, 16, MonitorDispatcher.BackpressurePolicy.BLOCK, Executors.defaultThreadFactory());
+        List<List<Integer>> received = IntStream.range(0, 5).mapToObj(n -> new ArrayList<Integer>()).collect(Collectors.toList());
+        CountDownLatch done = new CountDownLatch(received.size());
+        received.forEach(events -> dispatcher.addMonitor(event -> {
+            events.add(event);
+            if (event == 999)
+                done.countDown();
+        }));
+
+        // When
+        IntStream.range(0, 1000).forEach(dispatcher::publish);
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        List<Integer> expected = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        received.forEach(events -> assertThat(events, is(expected)));
+    }
+
+    @Test
+    void drop_when_full_success() throws InterruptedException {
+        // Given
+        dispatcher = new MonitorDispatcher<>(1, 4, MonitorDispatcher.BackpressurePolicy.DROP, Executors.defaultThreadFactory());
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = new ArrayList<>();
+        dispatcher.addMonitor(event -> {
+            awaitQuietly(release);
+            received.add(event);
+        });
+
+        // When
+        IntStream.range(0, 100).forEach(dispatcher::publish);
+        release.countDown();
+
+        // Then
+        assertThat(dispatcher.getDropped(), is(greaterThanOrEqualTo(95L)));
+        assertThat(dispatcher.getDropped(), is(lessThanOrEqualTo(96L)));
+    }
+
+    @Test
+    void spill_keeps_all_events_in_order_success() throws InterruptedException {
+        // Given
+        dispatcher = new MonitorDispatcher<>(1, 4, MonitorDispatcher.BackpressurePolicy.SPILL, Executors.defaultThreadFactory());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<Integer> received = new ArrayList<>();
+        dispatcher.addMonitor(event -> {
+            awaitQuietly(release);
+            received.add(event);
+            if (event == 99)
+                done.countDown();
+        });
+
+        // When
+        IntStream.range(0, 100).forEach(dispatcher::publish);
+        assertThat(dispatcher.getPending(), is(greaterThanOrEqualTo(99)));
+        release.countDown();
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(received, is(IntStream.range(0, 100).boxed().collect(Collectors.toList())));
+        assertThat(dispatcher.getDropped(), is(0L));
+    }
+
+    @Test
+    void monitor_publishing_into_its_own_full_lane_does_not_deadlock_success() throws InterruptedException {
+        // Given
+        dispatcher = new MonitorDispatcher<>(1, 4, MonitorDispatcher.BackpressurePolicy.BLOCK, Executors.defaultThreadFactory());
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.addMonitor(event -> {
+            if (event == 0)
+                IntStream.range(1, 100).forEach(dispatcher::publish);
+            if (event == 99)
+                done.countDown();
+        });
+
+        // When
+        dispatcher.publish(0);
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    void failing_monitor_is_reported_success() throws InterruptedException {
+        // Given
+        dispatcher = new MonitorDispatcher<>(1, 16, MonitorDispatcher.BackpressurePolicy.BLOCK, Executors.defaultThreadFactory());
+        List<Integer> failures = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.setFailureHandler((event, e) -> failures.add(event));
+        dispatcher.addMonitor(event -> {
+            if (event % 2 == 1)
+                throw new IllegalStateException("odd");
+        });
+        dispatcher.addMonitor(event -> {
+            if (event == 9)
+                done.countDown();
+        });
+
+        // When
+        IntStream.range(0, 10).forEach(dispatcher::publish);
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(failures, contains(1, 3, 5, 7, 9));
+        assertThat(dispatcher.getFailed(), is(5L));
+    }
+
+    @Test
+    void failing_failure_handler_is_counted_and_delivery_continues_success() throws InterruptedException {
+        // Given
+        dispatcher = new MonitorDispatcher<>(1, 16, MonitorDispatcher.BackpressurePolicy.BLOCK, Executors.defaultThreadFactory());
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.setFailureHandler((event, e) -> {
+            throw new IllegalStateException("handler");
+        });
+        dispatcher.addMonitor(event -> {
+            throw new IllegalStateException("monitor");
+        });
+        dispatcher.addMonitor(event -> {
+            if (event == 9)
+                done.countDown();
+        });
+
+        // When
+        IntStream.range(0, 10).forEach(dispatcher::publish);
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(dispatcher.getFailed(), is(10L));
+        assertThat(dispatcher.getFailedHandlers(), is(10L));
+    }
+
+    @Test
+    void close_delivers_queued_events_success() {
+        // Given
+        dispatcher = new MonitorDispatcher<>(1, 4, MonitorDispatcher.BackpressurePolicy.SPILL, Executors.defaultThreadFactory());
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        dispatcher.addMonitor(event -> {
+            awaitQuietly(release);
+            received.add(event);
+        });
+        IntStream.range(0, 100).forEach(dispatcher::publish);
+
+        // When
+        release.countDown();
+        dispatcher.close();
+
+        // Then
+        assertThat(received, is(IntStream.range(0, 100).boxed().collect(Collectors.toList())));
+        assertThat(dispatcher.getPending(), is(0));
+        assertThat(dispatcher.getDropped(), is(0L));
+    }
+
+    @Test
+    void interrupted_close_counts_undelivered_events_as_dropped_success() throws InterruptedException {
+        // Given
+        dispatcher = new MonitorDispatcher<>(1, 4, MonitorDispatcher.BackpressurePolicy.SPILL, Executors.defaultThreadFactory());
+        CountDownLatch started = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        dispatcher.addMonitor(event -> {
+            started.countDown();
+            awaitQuietly(new CountDownLatch(1));
+            received.add(event);
+        });
+        IntStream.range(0, 10).forEach(dispatcher::publish);
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+
+        // When
+        Thread.currentThread().interrupt();
+        dispatcher.close();
+        boolean interrupted = Thread.interrupted();
+
+        // Then
+        assertThat(interrupted, is(true));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.size() + dispatcher.getDropped() < 10 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertThat(received.size() + dispatcher.getDropped(), is(10L));
+        assertThat(dispatcher.getDropped(), is(greaterThan(0L)));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
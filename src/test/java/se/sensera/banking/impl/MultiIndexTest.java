@@ -0,0 +1,77 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.Account;
+import se.sensera.banking.AccountService;
+import se.sensera.banking.User;
+import se.sensera.banking.exceptions.UseException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class MultiIndexTest {
+
+    UsersRepositoryImpl usersRepository;
+    AccountsRepositoryImpl accountsRepository;
+    AccountService accountService;
+    User arne;
+    User lisa;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl();
+        accountsRepository = new AccountsRepositoryImpl();
+        accountService = new AccountServiceImpl(usersRepository, accountsRepository);
+        arne = usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+        lisa = usersRepository.save(new UserImpl("2", "Lisa Gunnarsson", "20011010-0234", true));
+    }
+
+    @Test
+    void find_accounts_of_owner_and_assigned_user_success() throws UseException {
+        // Given
+        Account arnesAccount = accountService.createAccount(arne.getId(), "arne");
+        Account lisasAccount = accountService.createAccount(lisa.getId(), "lisa");
+
+        // When
+        accountService.addUserToAccount(lisa.getId(), lisasAccount.getId(), arne.getId());
+
+        // Then
+        assertThat(findAccounts(arne), containsInAnyOrder(arnesAccount, lisasAccount));
+        assertThat(findAccounts(lisa), contains(lisasAccount));
+    }
+
+    @Test
+    void removed_user_is_removed_from_index_success() throws UseException {
+        // Given
+        Account lisasAccount = accountService.createAccount(lisa.getId(), "lisa");
+        accountService.addUserToAccount(lisa.getId(), lisasAccount.getId(), arne.getId());
+
+        // When
+        accountService.removeUserFromAccount(lisa.getId(), lisasAccount.getId(), arne.getId());
+
+        // Then
+        assertThat(findAccounts(arne), is(empty()));
+        assertThat(accountsRepository.getUserIndex().contains(arne.getId(), lisasAccount.getId()), is(false));
+    }
+
+    @Test
+    void deleted_account_is_removed_from_index_success() throws UseException {
+        // Given
+        Account lisasAccount = accountService.createAccount(lisa.getId(), "lisa");
+
+        // When
+        accountsRepository.delete(lisasAccount);
+
+        // Then
+        assertThat(findAccounts(lisa), is(empty()));
+    }
+
+    private List<Account> findAccounts(User user) throws UseException {
+        return accountService.findAccounts("", user.getId(), null, null, AccountService.SortOrder.None)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,69 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.User;
+import se.sensera.banking.UserService;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class NGramIndexTest {
+
+    UsersRepositoryImpl usersRepository;
+    UserService userService;
+    User arne;
+    User lisa;
+    User per;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl();
+        userService = new UserServiceImpl(usersRepository);
+        arne = usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+        lisa = usersRepository.save(new UserImpl("2", "Lisa Gunnarsson", "20011010-0234", true));
+        per = usersRepository.save(new UserImpl("3", "Per Andersson", "19991010-4234", true));
+    }
+
+    @Test
+    void search_candidates_success() {
+        assertThat(usersRepository.getSearchIndex().search("GUNNAR").collect(Collectors.toList()), containsInAnyOrder("1", "2"));
+        assertThat(usersRepository.getSearchIndex().search("1999").collect(Collectors.toList()), contains("3"));
+        assertThat(usersRepository.getSearchIndex().search("xyz").collect(Collectors.toList()), is(empty()));
+    }
+
+    @Test
+    void find_verifies_candidates_success() {
+        // "0101" has all its trigrams in "20011010" but is not a substring
+        assertThat(usersRepository.getSearchIndex().search("0101").collect(Collectors.toList()), is(not(empty())));
+        assertThat(find("0101"), is(empty()));
+        assertThat(find("sson"), containsInAnyOrder(arne, lisa, per));
+        assertThat(find("-0234"), contains(lisa));
+    }
+
+    @Test
+    void short_search_falls_back_to_scan_success() {
+        assertThat(find("pe"), contains(per));
+        assertThat(find(""), containsInAnyOrder(arne, lisa, per));
+    }
+
+    @Test
+    void renamed_user_is_reindexed_success() {
+        // Given
+        per.setName("Per Gunnarsson");
+
+        // When
+        usersRepository.save(per);
+
+        // Then
+        assertThat(find("gunnarsson"), containsInAnyOrder(arne, lisa, per));
+        assertThat(find("andersson"), is(empty()));
+    }
+
+    private List<User> find(String searchString) {
+        return userService.find(searchString, null, null, UserService.SortOrder.None).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,259 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.sensera.banking.Account;
+import se.sensera.banking.Posting;
+import se.sensera.banking.PostingResult;
+import se.sensera.banking.TransactionService;
+import se.sensera.banking.User;
+import se.sensera.banking.exceptions.CriticalError;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class PersistentRepositoriesTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopen_replays_users_accounts_and_transactions_success() throws Exception {
+        // Given
+        Path store = directory.resolve("bank");
+        String userId;
+        String otherId;
+        String accountId;
+        try (PersistentRepositories repositories = PersistentRepositories.open(store)) {
+            UserServiceImpl userService = new UserServiceImpl(repositories.getUsersRepository());
+            AccountServiceImpl accountService = new AccountServiceImpl(repositories.getUsersRepository(), repositories.getAccountsRepository());
+            TransactionService transactionService = transactionService(repositories);
+            User user = userService.createUser("Arne Gunnarsson", "20011010-1234");
+            User other = userService.createUser("Rolf Persson", "20011010-5678");
+            Account account = accountService.createAccount(user.getId(), "default");
+            accountService.addUserToAccount(user.getId(), account.getId(), other.getId());
+            userService.changeUser(user.getId(), changeUser -> changeUser.setName("Arne Andersson"));
+            transactionService.createTransaction("2020-01-01 10:00", user.getId(), account.getId(), 1000D);
+            transactionService.createTransaction("2020-01-01 10:10", other.getId(), account.getId(), -300D);
+            userId = user.getId();
+            otherId = other.getId();
+            accountId = account.getId();
+        }
+
+        // When
+        try (PersistentRepositories repositories = PersistentRepositories.open(store)) {
+
+            // Then
+            assertThat(repositories.getUsersRepository().getEntityById(userId).get().getName(), is("Arne Andersson"));
+            Account account = repositories.getAccountsRepository().getEntityById(accountId).get();
+            assertThat(account.getOwner().getId(), is(userId));
+            assertThat(account.getUsers().map(User::getId).collect(Collectors.toList()), contains(otherId));
+            assertThat(repositories.getAccountsRepository().getUserIndex().contains(otherId, accountId), is(true));
+            assertThat(transactionService(repositories).sum("2020-01-01 11:00", userId, accountId), is(700D));
+        }
+    }
+
+    @Test
+    void torn_tail_is_cut_off_success() throws Exception {
+        // Given
+        Path store = directory.resolve("bank");
+        try (PersistentRepositories repositories = PersistentRepositories.open(store)) {
+            repositories.getUsersRepository().save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+            repositories.getUsersRepository().save(new UserImpl("2", "Rolf Persson", "20011010-5678", true));
+        }
+        Path logFile = store.resolve("journal-000000.log");
+        long size = logFile.toFile().length();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        // When
+        try (PersistentRepositories repositories = PersistentRepositories.open(store)) {
+            repositories.getUsersRepository().save(new UserImpl("3", "Lisa Larsson", "20011010-9999", true));
+        }
+
+        // Then
+        try (PersistentRepositories repositories = PersistentRepositories.open(store)) {
+            assertThat(repositories.getUsersRepository().all().map(User::getId).collect(Collectors.toList()), containsInAnyOrder("1", "3"));
+        }
+    }
+
+    @Test
+    void concurrent_saves_share_fsync_success() throws Exception {
+        // Given
+        int count = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+
+            // When
+            List<Future<User>> futures = IntStream.range(0, count)
+                    .mapToObj(n -> executor.submit(() -> repositories.getUsersRepository().save(new UserImpl(String.valueOf(n), "User " + n, String.valueOf(n), true))))
+                    .collect(Collectors.toList());
+            for (Future<User> future : futures)
+                future.get();
+
+            // Then
+            assertThat(repositories.getUsersRepository().size(), is(count));
+            assertThat(repositories.getLog().getSyncCount(), lessThan((long) count));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrent_saves_of_one_entity_replay_the_latest_state_success() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        String latest;
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+            UserImpl user = new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true);
+            repositories.getUsersRepository().save(user);
+
+            // When
+            List<Future<User>> futures = IntStream.range(0, 800)
+                    .mapToObj(n -> executor.submit(() -> {
+                        user.setName("Arne " + n);
+                        return repositories.getUsersRepository().save(user);
+                    }))
+                    .collect(Collectors.toList());
+            for (Future<User> future : futures)
+                future.get();
+            latest = user.getName();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+            assertThat(repositories.getUsersRepository().getEntityById("1").get().getName(), is(latest));
+        }
+    }
+
+    @Test
+    void batch_is_written_with_one_sync_per_account_success() throws Exception {
+        // Given
+        String accountId;
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+            User user = repositories.getUsersRepository().save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+            Account account = repositories.getAccountsRepository().save(new AccountImpl("10", user, "default", true, new CopyOnWriteArrayList<>()));
+            accountId = account.getId();
+            List<Posting> postings = IntStream.range(0, 1000)
+                    .mapToObj(n -> new PostingImpl("2020-01-01 10:00", user.getId(), account.getId(), 1D))
+                    .collect(Collectors.toList());
+            long syncs = repositories.getLog().getSyncCount();
+
+            // When
+            List<PostingResult> results = transactionService(repositories).createTransactions(postings);
+
+            // Then
+            assertThat(results.stream().allMatch(PostingResult::isSuccess), is(true));
+            assertThat(repositories.getLog().getSyncCount() - syncs, is(1L));
+        }
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+            assertThat(repositories.getTransactionsRepository().size(), is(1000));
+            assertThat(transactionService(repositories).sum("2020-01-01 11:00", "1", accountId), is(1000D));
+        }
+    }
+
+    @Test
+    void reopen_loads_snapshot_and_replays_only_the_tail_success() throws Exception {
+        // Given
+        String accountId;
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+            User user = repositories.getUsersRepository().save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+            Account account = repositories.getAccountsRepository().save(new AccountImpl("10", user, "default", true, new CopyOnWriteArrayList<>()));
+            TransactionService transactionService = transactionService(repositories);
+            for (int n = 0; n < 100; n++)
+                transactionService.createTransaction("2020-01-01 10:00", user.getId(), account.getId(), 10D);
+            repositories.snapshot();
+            transactionService.createTransaction("2020-01-01 10:05", user.getId(), account.getId(), -50D);
+            repositories.getUsersRepository().save(new UserImpl("2", "Rolf Persson", "20011010-5678", true));
+            accountId = account.getId();
+        }
+
+        // When
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+
+            // Then
+            try (Stream<Path> files = Files.list(directory)) {
+                assertThat(files.map(file -> file.getFileName().toString()).collect(Collectors.toList()),
+                        containsInAnyOrder("snapshot-000001.bin", "journal-000001.log"));
+            }
+            assertThat(repositories.getUsersRepository().size(), is(2));
+            assertThat(repositories.getTransactionsRepository().size(), is(101));
+            assertThat(transactionService(repositories).sum("2020-01-01 11:00", "1", accountId), is(950D));
+        }
+    }
+
+    @Test
+    void failed_scheduled_snapshot_is_reported_failure() throws Exception {
+        // Given
+        Files.createDirectories(directory.resolve("snapshot.tmp").resolve("blocked"));
+        List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+            repositories.getUsersRepository().save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+
+            // When
+            repositories.scheduleSnapshots(10, TimeUnit.MILLISECONDS, failures::add);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (failures.isEmpty() && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+
+            // Then
+            assertThat(failures, not(empty()));
+            assertThat(failures.get(0), instanceOf(CriticalError.class));
+            assertThat(repositories.getFailedSnapshots(), greaterThanOrEqualTo(1L));
+        }
+    }
+
+    @Test
+    void snapshot_while_writing_loses_nothing_success() throws Exception {
+        // Given
+        int count = 4000;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+            User user = repositories.getUsersRepository().save(new UserImpl("owner", "Arne Gunnarsson", "20011010-1234", true));
+
+            // When
+            List<Future<?>> futures = IntStream.range(0, count)
+                    .mapToObj(n -> executor.submit(() -> {
+                        User created = repositories.getUsersRepository().save(new UserImpl("user-" + n, "User " + n, String.valueOf(n), true));
+                        Account account = repositories.getAccountsRepository().save(new AccountImpl("account-" + n, user, "account " + n, true, new CopyOnWriteArrayList<>(List.of(created))));
+                        return repositories.getTransactionsRepository().save(new TransactionImpl("transaction-" + n, new Date(n), created, account, n));
+                    }))
+                    .collect(Collectors.toList());
+            for (int n = 0; n < 5; n++)
+                repositories.snapshot();
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        try (PersistentRepositories repositories = PersistentRepositories.open(directory)) {
+            assertThat(repositories.getUsersRepository().size(), is(count + 1));
+            assertThat(repositories.getAccountsRepository().size(), is(count));
+            assertThat(repositories.getTransactionsRepository().size(), is(count));
+        }
+    }
+
+    private TransactionService transactionService(PersistentRepositories repositories) {
+        return new TransactionServiceImpl(repositories.getUsersRepository(), repositories.getAccountsRepository(), repositories.getTransactionsRepository());
+    }
+}
@@ -0,0 +1,110 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.Account;
+import se.sensera.banking.AccountService;
+import se.sensera.banking.User;
+import se.sensera.banking.UserService;
+import se.sensera.banking.exceptions.Activity;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseExceptionType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SortedIndexTest {
+
+    UsersRepositoryImpl usersRepository;
+    UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl();
+        userService = new UserServiceImpl(usersRepository);
+    }
+
+    @Test
+    void walk_all_users_by_cursor_success() throws UseException {
+        // Given
+        List<User> users = IntStream.range(0, 100)
+                .mapToObj(n -> usersRepository.save(new UserImpl("id" + n, "User " + (n % 10), "pid" + (1000 - n), true)))
+                .collect(Collectors.toList());
+
+        for (UserService.SortOrder sortOrder : UserService.SortOrder.values()) {
+            // When
+            List<User> walked = new ArrayList<>();
+            String cursor = null;
+            List<User> page;
+            do {
+                page = userService.findAfter("", cursor, 7, sortOrder).collect(Collectors.toList());
+                walked.addAll(page);
+                cursor = page.isEmpty() ? cursor : page.get(page.size() - 1).getId();
+            } while (!page.isEmpty());
+
+            // Then
+            assertThat(walked, is(userService.find("", null, null, sortOrder).sorted(order(sortOrder)).collect(Collectors.toList())));
+        }
+    }
+
+    @Test
+    void renamed_user_moves_in_index_success() throws UseException {
+        // Given
+        UserImpl arne = new UserImpl("1", "Arne", "1", true);
+        UserImpl beda = new UserImpl("2", "Beda", "2", true);
+        usersRepository.save(arne);
+        usersRepository.save(beda);
+
+        // When
+        arne.setName("Cesar");
+        usersRepository.save(arne);
+
+        // Then
+        assertThat(userService.findAfter("", null, null, UserService.SortOrder.Name).collect(Collectors.toList()), contains(beda, arne));
+        assertThat(userService.findAfter("", "2", null, UserService.SortOrder.Name).collect(Collectors.toList()), contains(arne));
+        assertThat(usersRepository.getSortedIndex(UserService.SortOrder.Name).size(), is(2));
+    }
+
+    @Test
+    void walk_accounts_by_name_cursor_success() throws UseException {
+        // Given
+        AccountService accountService = new AccountServiceImpl(usersRepository, new AccountsRepositoryImpl());
+        User user = usersRepository.save(new UserImpl("1", "Arne", "1", true));
+        for (String name : new String[]{"default b", "extra", "default a", "savings", "default c"})
+            accountService.createAccount(user.getId(), name);
+
+        // When
+        List<Account> first = accountService.findAccountsAfter("default", null, null, 2, AccountService.SortOrder.AccountName)
+                .collect(Collectors.toList());
+        List<Account> second = accountService.findAccountsAfter("default", null, first.get(1).getId(), 2, AccountService.SortOrder.AccountName)
+                .collect(Collectors.toList());
+
+        // Then
+        assertThat(first.stream().map(Account::getName).collect(Collectors.toList()), contains("default a", "default b"));
+        assertThat(second.stream().map(Account::getName).collect(Collectors.toList()), contains("default c"));
+    }
+
+    @Test
+    void unknown_cursor_fails() {
+        UseException userException = assertThrows(UseException.class, () ->
+                userService.findAfter("", "unknown", 10, UserService.SortOrder.Name));
+
+        assertThat(userException.getUserExceptionType(), is(UseExceptionType.NOT_FOUND));
+        assertThat(userException.getActivity(), is(Activity.FIND_USER));
+    }
+
+    private static Comparator<User> order(UserService.SortOrder sortOrder) {
+        return switch (sortOrder) {
+            case None -> Comparator.comparing(User::getId);
+            case Name -> Comparator.comparing(User::getName).thenComparing(User::getId);
+            case PersonalId -> Comparator.comparing(User::getPersonalIdentificationNumber).thenComparing(User::getId);
+        };
+    }
+}
@@ -0,0 +1,168 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.Account;
+import se.sensera.banking.AccountService;
+import se.sensera.banking.User;
+import se.sensera.banking.UserService;
+import se.sensera.banking.exceptions.UseException;
+
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UniqueIndexTest {
+
+    UsersRepositoryImpl usersRepository;
+    UniqueIndex<String, User, String> index;
+
+    @BeforeEach
+    void setUp() {
+        usersRepository = new UsersRepositoryImpl();
+        index = usersRepository.getPersonalIdentificationNumberIndex();
+    }
+
+    @Test
+    void save_indexes_key_success() {
+        // When
+        usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+
+        // Then
+        assertThat(index.contains("20011010-1234"), is(true));
+        assertThat(index.getOwner("20011010-1234"), is(Optional.of("1")));
+    }
+
+    @Test
+    void change_key_releases_old_key_success() {
+        // Given
+        UserImpl user = new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true);
+        usersRepository.save(user);
+
+        // When
+        user.setPersonalIdentificationNumber("20011010-0234");
+        usersRepository.save(user);
+
+        // Then
+        assertThat(index.contains("20011010-1234"), is(false));
+        assertThat(index.contains("20011010-0234"), is(true));
+        assertThat(index.size(), is(1));
+    }
+
+    @Test
+    void reserve_keeps_old_key_until_abandoned_success() {
+        // Given
+        usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+
+        // When
+        boolean reserved = index.reserve("20011010-0234", "1");
+
+        // Then
+        assertThat(reserved, is(true));
+        assertThat(index.getOwner("20011010-1234"), is(Optional.of("1")));
+        assertThat(index.getOwner("20011010-0234"), is(Optional.of("1")));
+        assertThat(index.reserve("20011010-1234", "2"), is(false));
+        index.abandon("20011010-0234", "1");
+        assertThat(index.contains("20011010-0234"), is(false));
+        index.abandon("20011010-1234", "1");
+        assertThat(index.getOwner("20011010-1234"), is(Optional.of("1")));
+    }
+
+    @Test
+    void claim_owned_by_other_fails() {
+        // Given
+        usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+
+        // Then
+        assertThat(index.claim("20011010-1234", "2"), is(false));
+        assertThat(index.claim("20011010-1234", "1"), is(true));
+        assertThrows(IllegalStateException.class, () -> usersRepository.save(new UserImpl("2", "Lisa Gunnarsson", "20011010-1234", true)));
+        assertThat(usersRepository.size(), is(1));
+    }
+
+    @Test
+    void delete_releases_key_success() {
+        // Given
+        User user = usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+
+        // When
+        usersRepository.delete(user);
+
+        // Then
+        assertThat(index.contains("20011010-1234"), is(false));
+    }
+
+    @Test
+    void parallel_create_same_personal_id_only_one_succeeds() {
+        // Given
+        UserService userService = new UserServiceImpl(usersRepository);
+
+        // When
+        long created = IntStream.range(0, 1000)
+                .parallel()
+                .filter(n -> {
+                    try {
+                        userService.createUser("User " + n, "20011010-1234");
+                        return true;
+                    } catch (UseException e) {
+                        return false;
+                    }
+                })
+                .count();
+
+        // Then
+        assertThat(created, is(1L));
+        assertThat(usersRepository.size(), is(1));
+    }
+
+    @Test
+    void rename_account_releases_old_name_success() throws UseException {
+        // Given
+        AccountsRepositoryImpl accountsRepository = new AccountsRepositoryImpl();
+        AccountService accountService = new AccountServiceImpl(usersRepository, accountsRepository);
+        User user = usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+        Account account = accountService.createAccount(user.getId(), "default");
+
+        // When
+        accountService.changeAccount(user.getId(), account.getId(), changeAccount -> {
+            try {
+                changeAccount.setName("savings");
+            } catch (UseException e) {
+                throw new RuntimeException("Test failed", e);
+            }
+        });
+
+        // Then
+        assertThat(accountsRepository.getNameIndex().contains("default"), is(false));
+        assertThat(accountsRepository.getNameIndex().getOwner("savings"), is(Optional.of(account.getId())));
+        assertThat(accountService.createAccount(user.getId(), "default").getName(), is("default"));
+    }
+
+    @Test
+    void parallel_create_same_account_name_only_one_succeeds() {
+        // Given
+        AccountsRepositoryImpl accountsRepository = new AccountsRepositoryImpl();
+        AccountService accountService = new AccountServiceImpl(usersRepository, accountsRepository);
+        User user = usersRepository.save(new UserImpl("1", "Arne Gunnarsson", "20011010-1234", true));
+
+        // When
+        long created = IntStream.range(0, 1000)
+                .parallel()
+                .filter(n -> {
+                    try {
+                        accountService.createAccount(user.getId(), "default");
+                        return true;
+                    } catch (UseException e) {
+                        return false;
+                    }
+                })
+                .count();
+
+        // Then
+        assertThat(created, is(1L));
+        assertThat(accountsRepository.size(), is(1));
+    }
+}
@@ -0,0 +1,47 @@
+package se.sensera.banking.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.sensera.banking.exceptions.CriticalError;
+
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_after_a_failed_write_is_not_replayed_failure() throws Exception {
+        // Given
+        Path file = directory.resolve("journal.log");
+        WriteAheadLog log = new WriteAheadLog(file);
+        log.open(record -> { });
+        log.append("a".getBytes(StandardCharsets.UTF_8));
+        Field channel = WriteAheadLog.class.getDeclaredField("channel");
+        channel.setAccessible(true);
+        ((FileChannel) channel.get(log)).close();
+        assertThrows(CriticalError.class, () -> log.append("b".getBytes(StandardCharsets.UTF_8)));
+
+        // When
+        FileChannel working = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channel.set(log, working);
+        assertThrows(CriticalError.class, () -> log.append("c".getBytes(StandardCharsets.UTF_8)));
+        log.close();
+
+        // Then
+        List<String> replayed = new CopyOnWriteArrayList<>();
+        WriteAheadLog.read(file, record -> replayed.add(new String(record, StandardCharsets.UTF_8)));
+        assertThat(replayed, contains("a"));
+    }
+}
@@ -0,0 +1,99 @@
+package se.sensera.banking.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sensera.banking.Account;
+import se.sensera.banking.TransactionService;
+import se.sensera.banking.User;
+import se.sensera.banking.UserService;
+import se.sensera.banking.exceptions.Activity;
+import se.sensera.banking.exceptions.UseException;
+import se.sensera.banking.exceptions.UseExceptionType;
+import se.sensera.banking.impl.*;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ActivityMetricsTest {
+
+    ActivityMetrics metrics;
+    UserService userService;
+    TransactionService transactionService;
+    User user;
+    Account account;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new ActivityMetrics();
+        UsersRepositoryImpl usersRepository = new UsersRepositoryImpl();
+        AccountsRepositoryImpl accountsRepository = new AccountsRepositoryImpl();
+        userService = new MeteredUserService(new UserServiceImpl(usersRepository), metrics);
+        transactionService = new MeteredTransactionService(new TransactionServiceImpl(usersRepository, accountsRepository, new TransactionsRepositoryImpl()), metrics);
+        user = usersRepository.save(new UserImpl(UUID.randomUUID().toString(), "Arne Gunnarsson", "20011010-1234", true));
+        account = accountsRepository.save(new AccountImpl(UUID.randomUUID().toString(), user, "default", true, new CopyOnWriteArrayList<>()));
+    }
+
+    @Test
+    void counts_successes_and_failures_per_type_success() throws UseException {
+        // When
+        transactionService.createTransaction("2020-01-01 10:00", user.getId(), account.getId(), 100D);
+        assertThrows(UseException.class, () -> transactionService.createTransaction("2020-01-01 10:00", user.getId(), account.getId(), -500D));
+        assertThrows(UseException.class, () -> transactionService.createTransaction("2020-01-01 10:00", "other", account.getId(), 1D));
+        assertThrows(UseException.class, () -> userService.createUser("Lisa", "20011010-1234"));
+        transactionService.sum("2020-01-01 11:00", user.getId(), account.getId());
+
+        // Then
+        ActivityStats createTransaction = metrics.get(Activity.CREATE_TRANSACTION);
+        assertThat(createTransaction.getLatency().getCount(), is(3L));
+        assertThat(createTransaction.getSuccesses(), is(1L));
+        assertThat(createTransaction.getFailures(UseExceptionType.NOT_FUNDED), is(1L));
+        assertThat(createTransaction.getFailures(UseExceptionType.NOT_ALLOWED), is(1L));
+        assertThat(createTransaction.getInFlight(), is(0));
+        assertThat(metrics.get(Activity.CREATE_USER).getFailures(), hasEntry(UseExceptionType.USER_PERSONAL_ID_NOT_UNIQUE, 1L));
+        assertThat(metrics.get(Activity.SUM_TRANSACTION).getSuccesses(), is(1L));
+    }
+
+    @Test
+    void batch_is_timed_apart_from_its_postings_success() {
+        // When
+        transactionService.createTransactions(List.of(
+                new PostingImpl("2020-01-01 10:00", user.getId(), account.getId(), 100D),
+                new PostingImpl("2020-01-01 10:10", user.getId(), account.getId(), -500D),
+                new PostingImpl("2020-01-01 10:20", user.getId(), account.getId(), -50D)));
+
+        // Then
+        ActivityStats batch = metrics.get(Activity.CREATE_TRANSACTION_BATCH);
+        assertThat(batch.getLatency().getCount(), is(1L));
+        assertThat(batch.getSuccesses(), is(1L));
+        ActivityStats createTransaction = metrics.get(Activity.CREATE_TRANSACTION);
+        assertThat(createTransaction.getLatency().getCount(), is(0L));
+        assertThat(createTransaction.getSuccesses(), is(2L));
+        assertThat(createTransaction.getFailures(UseExceptionType.NOT_FUNDED), is(1L));
+    }
+
+    @Test
+    void text_and_jmx_sinks_success() throws Exception {
+        // Given
+        transactionService.createTransaction("2020-01-01 10:00", user.getId(), account.getId(), 100D);
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        JmxMetricsSink jmx = new JmxMetricsSink(server, "test");
+
+        // When
+        String text = TextMetricsSink.format(metrics);
+        metrics.report(jmx);
+        metrics.report(jmx);
+
+        // Then
+        assertThat(text, containsString("CREATE_TRANSACTION"));
+        assertThat(text, not(containsString("SUM_TRANSACTION")));
+        Object count = server.getAttribute(jmx.objectName(metrics.get(Activity.CREATE_TRANSACTION)), "Count");
+        assertThat(count, is(1L));
+    }
+}
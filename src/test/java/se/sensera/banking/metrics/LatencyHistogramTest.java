@@ -0,0 +1,38 @@
+package se.sensera.banking.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucket_upper_bound_covers_value_success() {
+        LongStream.of(0, 1, 31, 32, 33, 63, 64, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE)
+                .forEach(value -> {
+                    long upper = LatencyHistogram.upperBound(LatencyHistogram.index(value));
+                    assertThat(upper, is(greaterThanOrEqualTo(value)));
+                    assertThat(upper - value, is(lessThanOrEqualTo(Math.max(1, value / 32))));
+                });
+    }
+
+    @Test
+    void percentiles_within_precision_success() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        LongStream.rangeClosed(1, 100_000).parallel().forEach(histogram::record);
+
+        // Then
+        assertThat(histogram.getCount(), is(100_000L));
+        assertThat(histogram.getMax(), is(100_000L));
+        assertThat(histogram.getMean(), is(closeTo(50_000.5, 0.001)));
+        assertThat((double) histogram.getValueAtPercentile(50), is(closeTo(50_000, 50_000 * 0.04)));
+        assertThat((double) histogram.getValueAtPercentile(99), is(closeTo(99_000, 99_000 * 0.04)));
+        assertThat(histogram.getValueAtPercentile(100), is(100_000L));
+    }
+}
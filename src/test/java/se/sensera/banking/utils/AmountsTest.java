@@ -0,0 +1,39 @@
+package se.sensera.banking.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AmountsTest {
+
+    @Test
+    void two_decimal_amounts_convert_exactly_success() {
+        assertThat(Amounts.toMinorUnits(0.1), is(10L));
+        assertThat(Amounts.toMinorUnits(-0.29), is(-29L));
+        assertThat(Amounts.toMinorUnits(1234567.89), is(123456789L));
+        IntStream.range(-100000, 100000).forEach(cents -> assertThat(Amounts.toMinorUnits(cents / 100D), is((long) cents)));
+    }
+
+    @Test
+    void sub_cent_amount_is_rejected_failure() {
+        assertThrows(IllegalArgumentException.class, () -> Amounts.toMinorUnits(0.005));
+        assertThrows(IllegalArgumentException.class, () -> Amounts.toMinorUnits(10.001));
+        assertThrows(IllegalArgumentException.class, () -> Amounts.toMinorUnits(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Amounts.toMinorUnits(Double.POSITIVE_INFINITY));
+        assertThat(Amounts.isWholeMinorUnits(0.005), is(false));
+    }
+
+    @Test
+    void stored_amount_rounds_half_to_even_success() {
+        assertThat(Amounts.roundToMinorUnits(0.005), is(0L));
+        assertThat(Amounts.roundToMinorUnits(0.015), is(2L));
+        assertThat(Amounts.roundToMinorUnits(0.025), is(2L));
+        assertThat(Amounts.roundToMinorUnits(-10.125), is(-1012L));
+        assertThat(Amounts.roundToMinorUnits(10.001), is(1000L));
+        assertThat(Amounts.roundToMinorUnits(0.1), is(10L));
+    }
+}
@@ -3,8 +3,10 @@ package se.sensera.banking.utils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -68,4 +70,72 @@ class ListUtilsTest {
         assertThat(rs, is(empty()));
     }
 
-}
\ No newline at end of file
+    @Test
+    void andra_page_med_pageSize_success() {
+        // When
+        List<Integer> rs = ListUtils.applyPage(list.stream(), 1, 3).collect(Collectors.toList());
+
+        assertThat(rs, contains(3, 4, 5));
+    }
+
+    @Test
+    void sista_page_med_pageSize_success() {
+        // When
+        List<Integer> rs = ListUtils.applyPage(list.stream(), 3, 3).collect(Collectors.toList());
+
+        assertThat(rs, contains(9));
+    }
+
+    @Test
+    void alla_pages_tillsammans_success() {
+        // When
+        List<Integer> rs = IntStream.range(0, 4)
+                .boxed()
+                .flatMap(pageNumber -> ListUtils.applyPage(list.stream(), pageNumber, 3))
+                .collect(Collectors.toList());
+
+        assertThat(rs, is(list));
+    }
+
+    @Test
+    void negativ_pageNumber_success() {
+        // When
+        List<Integer> rs = ListUtils.applyPage(list.stream(), -1, 3).collect(Collectors.toList());
+
+        assertThat(rs, is(empty()));
+    }
+
+    @Test
+    void oandlig_stream_success() {
+        // When
+        List<Integer> rs = ListUtils.applyPage(Stream.iterate(0, n -> n + 1), 2, 3).collect(Collectors.toList());
+
+        assertThat(rs, contains(6, 7, 8));
+    }
+
+    @Test
+    void sorterad_page_success() {
+        // When
+        List<Integer> rs = ListUtils.applySortedPage(Stream.of(7, 3, 9, 0, 5, 1, 8, 2, 6, 4), Comparator.reverseOrder(), 1, 3)
+                .collect(Collectors.toList());
+
+        assertThat(rs, contains(6, 5, 4));
+    }
+
+    @Test
+    void sorterad_page_som_sorted_success() {
+        List<String> words = Stream.of("b1", "a1", "c1", "a2", "b2", "a3", "c2", "b3").collect(Collectors.toList());
+        Comparator<String> firstLetter = Comparator.comparing(word -> word.charAt(0));
+
+        for (Integer pageNumber : new Integer[]{null, 0, 1, 2, 3})
+            for (Integer pageSize : new Integer[]{null, 0, 1, 3, 10}) {
+                List<String> expected = ListUtils.applyPage(words.stream().sorted(firstLetter), pageNumber, pageSize)
+                        .collect(Collectors.toList());
+                List<String> rs = ListUtils.applySortedPage(words.stream(), firstLetter, pageNumber, pageSize)
+                        .collect(Collectors.toList());
+
+                assertThat("page " + pageNumber + " size " + pageSize, rs, is(expected));
+            }
+    }
+
+}
@@ -0,0 +1,73 @@
+package se.sensera.banking.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ThreadFactoriesTest {
+
+    @Test
+    void platform_threads_are_named_daemons_success() {
+        // When
+        Thread thread = ThreadFactories.forMode(ExecutionMode.PLATFORM, "worker-").newThread(() -> {});
+
+        // Then
+        assertThat(thread.getName(), is("worker-1"));
+        assertThat(thread.isDaemon(), is(true));
+    }
+
+    @Test
+    void virtual_threads_when_available_success() throws Exception {
+        assumeTrue(ThreadFactories.virtualThreadsAvailable());
+
+        // When
+        Thread thread = ThreadFactories.forMode(ExecutionMode.VIRTUAL, "request-").newThread(() -> {});
+
+        // Then
+        assertThat(thread.getName(), is("request-1"));
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread), is(true));
+    }
+
+    @Test
+    void virtual_threads_when_not_available_failure() {
+        assumeFalse(ThreadFactories.virtualThreadsAvailable());
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> ThreadFactories.forMode(ExecutionMode.VIRTUAL, "request-"));
+    }
+
+    @Test
+    void per_task_executor_runs_tasks_concurrently_success() throws Exception {
+        // Given
+        ThreadFactory threadFactory = ThreadFactories.forMode(
+                ThreadFactories.virtualThreadsAvailable() ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM, "task-");
+        Executor executor = ThreadFactories.perTask(threadFactory);
+        int tasks = 100;
+        CountDownLatch started = new CountDownLatch(tasks);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        for (int i = 0; i < tasks; i++)
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+        // Then
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+        release.countDown();
+    }
+}
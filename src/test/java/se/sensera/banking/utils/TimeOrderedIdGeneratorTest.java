@@ -0,0 +1,98 @@
+package se.sensera.banking.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void ids_sort_in_creation_order_even_within_one_millisecond_success() {
+        // Given
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(3, () -> 1600000000000L);
+
+        // When
+        List<String> ids = IntStream.range(0, 10000)
+                .mapToObj(n -> generator.nextId())
+                .collect(Collectors.toList());
+
+        // Then
+        assertThat(ids.stream().sorted().collect(Collectors.toList()), is(ids));
+        assertThat(ids.stream().distinct().count(), is(10000L));
+        assertThat(ids.get(0).length(), is(13));
+    }
+
+    @Test
+    void exhausted_sequence_borrows_the_next_millisecond_without_touching_the_node_success() {
+        // Given
+        TimeOrderedIdGenerator node3 = new TimeOrderedIdGenerator(3, () -> 1600000000000L);
+        TimeOrderedIdGenerator node4 = new TimeOrderedIdGenerator(4, () -> 1600000000000L);
+        Set<Long> ids = new HashSet<>();
+
+        // When
+        List<Long> node3Ids = IntStream.range(0, 10000).mapToObj(n -> node3.nextLong()).collect(Collectors.toList());
+        List<Long> node4Ids = IntStream.range(0, 10000).mapToObj(n -> node4.nextLong()).collect(Collectors.toList());
+        ids.addAll(node3Ids);
+        ids.addAll(node4Ids);
+
+        // Then
+        assertThat(ids.size(), is(20000));
+        assertThat(node3Ids.stream().allMatch(id -> TimeOrderedIdGenerator.node(id) == 3), is(true));
+        assertThat(node4Ids.stream().allMatch(id -> TimeOrderedIdGenerator.node(id) == 4), is(true));
+        assertThat(TimeOrderedIdGenerator.createdMillis(node3Ids.get(9999)), is(1600000000002L));
+    }
+
+    @Test
+    void ids_stay_ordered_when_the_clock_goes_backwards_success() {
+        // Given
+        long[] now = {1600000001000L};
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, () -> now[0]);
+        String first = generator.nextId();
+
+        // When
+        now[0] -= 500;
+        String second = generator.nextId();
+
+        // Then
+        assertThat(second, greaterThan(first));
+    }
+
+    @Test
+    void parallel_ids_are_unique_success() {
+        // Given
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        // When
+        IntStream.range(0, 100000).parallel().forEach(n -> ids.add(generator.nextId()));
+
+        // Then
+        assertThat(ids.size(), is(100000));
+    }
+
+    @Test
+    void id_carries_its_creation_time_success() {
+        // Given
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(7, () -> 1600000000123L);
+
+        // When
+        String id = generator.nextId();
+
+        // Then
+        assertThat(TimeOrderedIdGenerator.createdMillis(TimeOrderedIdGenerator.parse(id)), is(1600000000123L));
+    }
+
+    @Test
+    void node_out_of_range_failure() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(TimeOrderedIdGenerator.MAX_NODE + 1));
+    }
+}
@@ -0,0 +1,45 @@
+package se.sensera.banking.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class TimestampCacheTest {
+
+    AtomicInteger parsed;
+    TimestampCache cache;
+
+    @BeforeEach
+    void setUp() {
+        parsed = new AtomicInteger();
+        cache = new TimestampCache(16, text -> {
+            parsed.incrementAndGet();
+            return Long.parseLong(text);
+        });
+    }
+
+    @Test
+    void repeated_text_is_parsed_once_success() {
+        // When
+        IntStream.range(0, 1000).forEach(n -> assertThat(cache.toEpochMillis("1577871240000"), is(1577871240000L)));
+
+        // Then
+        assertThat(parsed.get(), is(1));
+    }
+
+    @Test
+    void colliding_texts_still_parse_correctly_success() {
+        // When
+        IntStream.range(0, 1000)
+                .parallel()
+                .forEach(n -> assertThat(cache.toEpochMillis(String.valueOf(n % 100)), is((long) (n % 100))));
+
+        // Then
+        assertThat(parsed.get(), is(greaterThanOrEqualTo(100)));
+    }
+}